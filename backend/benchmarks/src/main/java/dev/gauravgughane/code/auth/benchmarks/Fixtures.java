@@ -0,0 +1,61 @@
+package dev.gauravgughane.code.auth.benchmarks;
+
+import dev.gauravgughane.code.auth.config.ShardRouter;
+import dev.gauravgughane.code.auth.dto.TenantDescriptor;
+import dev.gauravgughane.code.auth.entity.TenantStatus;
+import dev.gauravgughane.code.auth.service.KeyRing;
+import dev.gauravgughane.code.auth.service.SigningKey;
+import dev.gauravgughane.code.auth.service.TenantRegistry;
+import dev.gauravgughane.code.auth.service.TokenDenylist;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+// Builds service objects without a Spring context or database
+final class Fixtures {
+
+    static final String TENANT = "acme";
+
+    private Fixtures() {}
+
+    // Registry holding `count` active tenants (acme plus filler), as if loaded from public.tenants
+    static TenantRegistry registry(int count) {
+        TenantRegistry registry = new TenantRegistry();
+        register(registry, TENANT);
+        for (int i = 1; i < count; i++) {
+            register(registry, "tenant-" + i);
+        }
+        return registry;
+    }
+
+    // Ring with a single in-memory key of the given algorithm
+    static KeyRing keyRing(SigningKey.Algorithm algorithm) {
+        SigningKey key = algorithm.generate("bench", Instant.EPOCH);
+        KeyRing keyRing = new KeyRing(() -> List.of(key));
+        try {
+            keyRing.load();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return keyRing;
+    }
+
+    // Denylist holding `revoked` random token ids that expire in an hour, as after a busy day of logouts
+    static TokenDenylist denylist(int revoked) {
+        TokenDenylist denylist = new TokenDenylist(16, 100_000, 0.01, new SimpleMeterRegistry());
+        long expiresAt = Instant.now().plusSeconds(3600).getEpochSecond();
+        for (int i = 0; i < revoked; i++) {
+            denylist.revokeToken(UUID.randomUUID(), expiresAt);
+        }
+        return denylist;
+    }
+
+    private static void register(TenantRegistry registry, String tenantId) {
+        TenantDescriptor descriptor = new TenantDescriptor(
+                tenantId, "tenant_" + tenantId, TenantStatus.ACTIVE, null, null, ShardRouter.MAIN, Instant.EPOCH);
+        ReflectionTestUtils.invokeMethod(registry, "register", descriptor);
+    }
+}
@@ -0,0 +1,68 @@
+package dev.gauravgughane.code.auth.benchmarks;
+
+import dev.gauravgughane.code.auth.entity.UserRole;
+import dev.gauravgughane.code.auth.service.JwtService;
+import dev.gauravgughane.code.auth.service.SigningKey;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token issue and verification. cacheSize=0 disables the verified-token cache, so the
+ * numbers show the full parse + signature check cost (per algorithm); the default size shows the steady state for
+ * a client reusing its token.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtBenchmark {
+
+    @Param({"0", "10000"})
+    public long cacheSize;
+
+    @Param({"ES256", "EDDSA"})
+    public SigningKey.Algorithm algorithm;
+
+    private JwtService jwtService;
+    private String userId;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService(cacheSize, Duration.ofMinutes(15), new SimpleMeterRegistry(),
+                Fixtures.keyRing(algorithm), Fixtures.denylist(1000));
+        userId = UUID.randomUUID().toString();
+        token = jwtService.generateToken(userId, Fixtures.TENANT, UserRole.USER);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtService.generateToken(userId, Fixtures.TENANT, UserRole.USER);
+    }
+
+    @Benchmark
+    public Boolean validateToken() {
+        return jwtService.validateToken(token, userId);
+    }
+
+    @Benchmark
+    public String extractTenantId() {
+        return jwtService.extractTenantId(token);
+    }
+}
@@ -0,0 +1,67 @@
+package dev.gauravgughane.code.auth.benchmarks;
+
+import dev.gauravgughane.code.auth.dto.TokenClaims;
+import dev.gauravgughane.code.auth.entity.UserRole;
+import dev.gauravgughane.code.auth.service.TokenDenylist;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The revocation check every verification runs, with `revoked` token ids in the denylist
+ * and watermarks for other subjects of the same tenant. notRevoked is the common case and
+ * should stay allocation-free (gc.alloc.rate.norm ~0).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RevocationBenchmark {
+
+    @Param({"0", "10000", "100000"})
+    public int revoked;
+
+    private TokenDenylist denylist;
+    private TokenClaims live;
+    private TokenClaims revokedToken;
+
+    @Setup
+    public void setUp() {
+        denylist = Fixtures.denylist(revoked);
+        Instant issuedAt = Instant.now();
+        Instant expiresAt = issuedAt.plusSeconds(900);
+        for (int i = 0; i < 100; i++) {
+            denylist.revokeSubject(Fixtures.TENANT, UUID.randomUUID().toString(),
+                    issuedAt.getEpochSecond(), expiresAt.getEpochSecond());
+        }
+        live = new TokenClaims(UUID.randomUUID(), UUID.randomUUID().toString(), Fixtures.TENANT, UserRole.USER,
+                issuedAt, expiresAt);
+        revokedToken = new TokenClaims(UUID.randomUUID(), UUID.randomUUID().toString(), Fixtures.TENANT, UserRole.USER,
+                issuedAt, expiresAt);
+        denylist.revokeToken(revokedToken.tokenId(), expiresAt.getEpochSecond());
+    }
+
+    @Benchmark
+    public TokenDenylist.Reason notRevoked() {
+        return denylist.check(live);
+    }
+
+    @Benchmark
+    public TokenDenylist.Reason revokedById() {
+        return denylist.check(revokedToken);
+    }
+}
@@ -0,0 +1,67 @@
+package dev.gauravgughane.code.auth.benchmarks;
+
+import dev.gauravgughane.code.auth.config.CurrentTenantIdentifierResolverImpl;
+import dev.gauravgughane.code.auth.config.TenantContext;
+import dev.gauravgughane.code.auth.dto.TenantDescriptor;
+import dev.gauravgughane.code.auth.service.TenantRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// TenantFilter looks the tenant up once per request; Hibernate then calls the resolver on every session open
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TenantResolutionBenchmark {
+
+    @Param({"10", "10000"})
+    public int tenants;
+
+    // Header spellings clients actually send; the normalized form takes the slow path
+    @Param({"acme", "TENANT_ACME"})
+    public String tenantHeader;
+
+    private TenantRegistry registry;
+    private CurrentTenantIdentifierResolverImpl resolver;
+
+    @Setup
+    public void setUp() {
+        registry = Fixtures.registry(tenants);
+        resolver = new CurrentTenantIdentifierResolverImpl();
+    }
+
+    @Setup(Level.Iteration)
+    public void bindTenant() {
+        TenantContext.set(registry.find(tenantHeader));
+    }
+
+    @TearDown(Level.Iteration)
+    public void clearTenant() {
+        TenantContext.clear();
+    }
+
+    @Benchmark
+    public TenantDescriptor findTenant() {
+        return registry.find(tenantHeader);
+    }
+
+    @Benchmark
+    public String resolveCurrentTenantIdentifier() {
+        return resolver.resolveCurrentTenantIdentifier();
+    }
+}
@@ -0,0 +1,57 @@
+#!/usr/bin/env sh
+# Compares request handling on the fixed Tomcat pool against virtual threads.
+#
+# Starts the packaged app twice (VIRTUAL_THREADS=false, then true) against the database
+# configured through the usual DB_* variables (plus JWT_KEY_ENCRYPTION_SECRET), registers
+# one user and drives a login storm with `hey` (https://github.com/rakyll/hey). Results
+# land in target/thread-modes/.
+#
+# /actuator/metrics is operator-only: set OPERATOR_TOKEN to an operator's access token to
+# get the thread counts.
+#
+# Usage: scripts/compare-thread-modes.sh [concurrency] [requests]
+set -eu
+
+CONCURRENCY=${1:-2000}
+REQUESTS=${2:-20000}
+TENANT=${TENANT:-acme}
+PORT=${SERVER_PORT:-8080}
+OPERATOR_TOKEN=${OPERATOR_TOKEN:-}
+JAR=$(ls target/*.jar | grep -v original | head -n 1)
+OUT=target/thread-modes
+mkdir -p "$OUT"
+
+command -v hey >/dev/null || { echo "hey is required on PATH" >&2; exit 1; }
+
+BODY='{"name":"Bench","email":"bench@example.com","password":"bench-password"}'
+
+wait_for_app() {
+    for _ in $(seq 1 60); do
+        curl -fs "http://localhost:$PORT/actuator/health" >/dev/null 2>&1 && return 0
+        sleep 1
+    done
+    echo "application did not become healthy" >&2
+    return 1
+}
+
+for MODE in false true; do
+    echo "== virtual threads: $MODE"
+    VIRTUAL_THREADS=$MODE PASSWORD_HASH_QUEUE=$CONCURRENCY java -jar "$JAR" > "$OUT/app-virtual-$MODE.log" 2>&1 &
+    APP_PID=$!
+    wait_for_app
+
+    curl -fs -X POST "http://localhost:$PORT/api/auth/register" \
+        -H "Content-Type: application/json" -H "X-Project-ID: $TENANT" -d "$BODY" >/dev/null || true
+
+    THREADS_BEFORE=$(curl -fs -H "Authorization: Bearer $OPERATOR_TOKEN" "http://localhost:$PORT/actuator/metrics/jvm.threads.live" | sed 's/.*"value":\([0-9.]*\).*/\1/')
+    hey -n "$REQUESTS" -c "$CONCURRENCY" -m POST \
+        -H "Content-Type: application/json" -H "X-Project-ID: $TENANT" -d "$BODY" \
+        "http://localhost:$PORT/api/auth/login" > "$OUT/login-virtual-$MODE.txt"
+    THREADS_PEAK=$(curl -fs -H "Authorization: Bearer $OPERATOR_TOKEN" "http://localhost:$PORT/actuator/metrics/jvm.threads.peak" | sed 's/.*"value":\([0-9.]*\).*/\1/')
+
+    echo "platform threads before=$THREADS_BEFORE peak=$THREADS_PEAK" | tee -a "$OUT/login-virtual-$MODE.txt"
+    grep -E "Requests/sec|99%|95%|50%|\[2..\]|\[5..\]" "$OUT/login-virtual-$MODE.txt" || true
+
+    kill "$APP_PID"
+    wait "$APP_PID" 2>/dev/null || true
+done
@@ -0,0 +1,101 @@
+#!/usr/bin/env sh
+# Measures how quickly a fresh node serves at full speed: plain start against fast start
+# (AOT-processed classes, a CDS archive from a training run, warm-up before readiness).
+#
+# Needs the jar from `mvn -Pfast-start package`, the database configured through the
+# usual DB_* variables and JWT_KEY_ENCRYPTION_SECRET. Every start is timed from launch until
+#   ready   - /actuator/health/readiness answers 200
+#   first   - the first login (the first request after ready) has answered
+#   steady  - login latency has settled: the first of 10 consecutive logins that all take
+#             at most 1.5x the median of the last 50 logins of the run
+# Results land in target/startup/ (summary.txt plus the per-request latencies).
+#
+# Usage: scripts/measure-startup.sh [runs-per-mode] [logins-per-run]
+set -eu
+
+RUNS=${1:-3}
+LOGINS=${2:-300}
+TENANT=${TENANT:-acme}
+PORT=${SERVER_PORT:-8080}
+JAR=$(ls target/*-exec.jar | head -n 1)
+OUT=target/startup
+APP=$OUT/app
+BODY='{"name":"Startup","email":"startup@example.com","password":"startup-password"}'
+
+# Throttling would turn the login loop into 429s
+export LOGIN_RATE_LIMIT_ENABLED=false
+
+now_ms() { date +%s%3N; }
+
+wait_for_ready() {
+    for _ in $(seq 1 1200); do
+        [ "$(curl -s -o /dev/null -w '%{http_code}' "http://localhost:$PORT/actuator/health/readiness")" = 200 ] && return 0
+        sleep 0.05
+    done
+    echo "application did not become ready" >&2
+    return 1
+}
+
+login() {
+    curl -s -o /dev/null -w '%{time_total}' -X POST "http://localhost:$PORT/api/auth/login" \
+        -H "Content-Type: application/json" -H "X-Project-ID: $TENANT" -d "$BODY"
+}
+
+rm -rf "$OUT"
+mkdir -p "$OUT"
+java -Djarmode=tools -jar "$JAR" extract --destination "$APP" --application-filename app.jar
+
+echo "== training run"
+java -XX:ArchiveClassesAtExit="$APP/app.jsa" -Dspring.aot.enabled=true -Dauth.warmup.exit-when-done=true \
+    -jar "$APP/app.jar" > "$OUT/training.log" 2>&1
+
+# The measured logins need a user; registering it must not count as anyone's first request
+java -Dauth.warmup.enabled=false -jar "$JAR" > "$OUT/setup.log" 2>&1 &
+APP_PID=$!
+wait_for_ready
+curl -fs -X POST "http://localhost:$PORT/api/auth/register" \
+    -H "Content-Type: application/json" -H "X-Project-ID: $TENANT" -d "$BODY" >/dev/null || true
+kill "$APP_PID"
+wait "$APP_PID" 2>/dev/null || true
+
+printf '%-10s %4s %9s %9s %12s %10s %12s\n' mode run ready_ms first_ms first_login_ms steady_ms steady_login_ms \
+    | tee "$OUT/summary.txt"
+
+for MODE in plain fast; do
+    for RUN in $(seq 1 "$RUNS"); do
+        LATENCIES="$OUT/$MODE-$RUN.txt"
+        START=$(now_ms)
+        if [ "$MODE" = plain ]; then
+            java -Dauth.warmup.enabled=false -jar "$JAR" > "$OUT/$MODE-$RUN.log" 2>&1 &
+        else
+            java -XX:SharedArchiveFile="$APP/app.jsa" -Dspring.aot.enabled=true -jar "$APP/app.jar" \
+                > "$OUT/$MODE-$RUN.log" 2>&1 &
+        fi
+        APP_PID=$!
+        wait_for_ready
+        READY=$(($(now_ms) - START))
+
+        : > "$LATENCIES"
+        for _ in $(seq 1 "$LOGINS"); do
+            SECONDS_TAKEN=$(login)
+            echo "$(($(now_ms) - START)) $SECONDS_TAKEN" >> "$LATENCIES"
+        done
+        kill "$APP_PID"
+        wait "$APP_PID" 2>/dev/null || true
+
+        MEDIAN=$(tail -n 50 "$LATENCIES" | awk '{ print $2 * 1000 }' | sort -n | sed -n '25p;26p' \
+            | awk '{ sum += $1 } END { print sum / 2 }')
+        # Lines are elapsed-since-launch (ms) and latency (s) per login
+        awk -v mode="$MODE" -v run="$RUN" -v ready="$READY" -v median="$MEDIAN" '
+            { at[NR] = $1; lat[NR] = $2 * 1000 }
+            END {
+                steady = at[NR]
+                for (i = 1; i <= NR - 9; i++) {
+                    settled = 1
+                    for (j = i; j < i + 10; j++) if (lat[j] > 1.5 * median) { settled = 0; break }
+                    if (settled) { steady = at[i]; break }
+                }
+                printf "%-10s %4d %9d %9d %12.1f %10d %12.1f\n", mode, run, ready, at[1], lat[1], steady, median
+            }' "$LATENCIES" | tee -a "$OUT/summary.txt"
+    done
+done
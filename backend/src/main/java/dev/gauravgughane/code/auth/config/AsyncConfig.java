@@ -0,0 +1,15 @@
+package dev.gauravgughane.code.auth.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+
+@Configuration
+public class AsyncConfig {
+
+    // Picked up by Spring Boot's task executors (@Async, MVC async), virtual or not
+    @Bean
+    public TaskDecorator contextPropagatingTaskDecorator() {
+        return runnable -> ContextSnapshot.capture().wrap(runnable);
+    }
+}
@@ -0,0 +1,84 @@
+package dev.gauravgughane.code.auth.config;
+
+import dev.gauravgughane.code.auth.dto.TenantDescriptor;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Carries the request's tenant and security context across a hand-off to another thread
+ * (platform or virtual). The worker gets the captured values for the duration of the task
+ * and its own previous values back afterwards, so nothing leaks into the next task.
+ *
+ * Used for @Async tasks and the password-hashing executor, whose work runs on behalf of the
+ * request. The audit writer, introspection and import hashing pools do not read either
+ * context: their tasks carry the schema or token they work on explicitly.
+ */
+public final class ContextSnapshot {
+
+    private final TenantDescriptor tenant;
+    private final Authentication authentication;
+
+    private ContextSnapshot(TenantDescriptor tenant, Authentication authentication) {
+        this.tenant = tenant;
+        this.authentication = authentication;
+    }
+
+    public static ContextSnapshot capture() {
+        return new ContextSnapshot(
+                TenantContext.get(),
+                SecurityContextHolder.getContext().getAuthentication()
+        );
+    }
+
+    public Runnable wrap(Runnable task) {
+        return () -> {
+            ContextSnapshot previous = apply();
+            try {
+                task.run();
+            } finally {
+                previous.restore();
+            }
+        };
+    }
+
+    public <T> Callable<T> wrap(Callable<T> task) {
+        return () -> {
+            ContextSnapshot previous = apply();
+            try {
+                return task.call();
+            } finally {
+                previous.restore();
+            }
+        };
+    }
+
+    // Installs this snapshot on the current thread and returns what was there before
+    private ContextSnapshot apply() {
+        ContextSnapshot previous = capture();
+        set(tenant, authentication);
+        return previous;
+    }
+
+    private void restore() {
+        set(tenant, authentication);
+    }
+
+    private static void set(TenantDescriptor tenant, Authentication authentication) {
+        if (tenant != null) {
+            TenantContext.set(tenant);
+        } else {
+            TenantContext.clear();
+        }
+        if (authentication != null) {
+            // Fresh context object: SecurityContext instances are mutable and must not be shared
+            SecurityContext context = SecurityContextHolder.createEmptyContext();
+            context.setAuthentication(authentication);
+            SecurityContextHolder.setContext(context);
+        } else {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
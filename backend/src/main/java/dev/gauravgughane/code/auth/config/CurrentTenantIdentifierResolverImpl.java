@@ -4,23 +4,17 @@ import org.hibernate.context.spi.CurrentTenantIdentifierResolver;
 import org.springframework.stereotype.Component;
 
 @Component
-public class CurrentTenantIdentifierResolverImpl implements CurrentTenantIdentifierResolver {
+public class CurrentTenantIdentifierResolverImpl implements CurrentTenantIdentifierResolver<String> {
 
+    // Called on every session open: a ThreadLocal read, no lookup or allocation
     @Override
     public String resolveCurrentTenantIdentifier() {
-        String tenantId = TenantContext.getTenantId();
-        if (tenantId != null && !tenantId.trim().isEmpty()) {
-            // Normalize tenant ID for schema naming
-            if (!tenantId.equals("public") && !tenantId.startsWith("tenant_")) {
-                return "tenant_" + tenantId.toLowerCase();
-            }
-            return tenantId.toLowerCase();
-        }
-        return "public";
+        // Unknown and suspended tenants never reach a tenant schema
+        return TenantContext.getSchema();
     }
 
     @Override
     public boolean validateExistingCurrentSessions() {
         return true;
     }
-}
\ No newline at end of file
+}
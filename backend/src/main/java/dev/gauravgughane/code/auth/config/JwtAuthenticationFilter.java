@@ -1,26 +1,40 @@
 package dev.gauravgughane.code.auth.config;
 
+import dev.gauravgughane.code.auth.dto.TokenClaims;
+import dev.gauravgughane.code.auth.entity.UserRole;
 import dev.gauravgughane.code.auth.service.JwtService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    // Verified claims of the request's token, for TenantFilter to take the tenant from
+    public static final String CLAIMS_ATTRIBUTE = JwtAuthenticationFilter.class.getName() + ".claims";
+
     @Autowired
     private JwtService jwtService;
 
+    // Tenant whose SUPER_ADMINs operate the whole deployment; tokens without a tenant are "public"
+    @Value("${auth.operator.tenant:public}")
+    private String operatorTenant;
+
     @Override
     protected void doFilterInternal(
             @NonNull HttpServletRequest request,
@@ -36,7 +50,6 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         final String authHeader = request.getHeader("Authorization");
         final String jwt;
-        final String userId;
 
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             filterChain.doFilter(request, response);
@@ -46,29 +59,38 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         jwt = authHeader.substring(7); // Remove "Bearer "
 
         try {
-            userId = jwtService.extractUserId(jwt);
-            String tenantId = jwtService.extractTenantId(jwt);
+            // Single parse + signature check (or cache hit) per request
+            TokenClaims claims = jwtService.verify(jwt);
+            String userId = claims.subject();
 
             if (userId != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                if (jwtService.validateToken(jwt, userId)) {
-                    // Set tenant context from token
-                    TenantContext.setTenantId(tenantId);
+                request.setAttribute(CLAIMS_ATTRIBUTE, claims);
 
-                    // Optional: Set Spring Security auth (for @PreAuthorize)
-                    UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                            userId,
-                            null,
-                            null // Add authorities if needed
-                    );
-                    authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                    SecurityContextHolder.getContext().setAuthentication(authToken);
-                }
+                // ROLE_<role> from the token, for the role rules in SecurityConfig
+                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                        userId,
+                        null,
+                        authorities(claims)
+                );
+                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                SecurityContextHolder.getContext().setAuthentication(authToken);
             }
         } catch (Exception e) {
             logger.error("JWT validation failed", e);
-        } finally {
-            filterChain.doFilter(request, response);
-            TenantContext.clear(); // Always clear after request
         }
+        filterChain.doFilter(request, response);
+    }
+
+    // SUPER_ADMIN of the operator tenant also gets ROLE_OPERATOR; in any other tenant it is only
+    // that tenant's top role
+    private List<GrantedAuthority> authorities(TokenClaims claims) {
+        List<GrantedAuthority> authorities = new ArrayList<>(2);
+        authorities.add(new SimpleGrantedAuthority("ROLE_" + claims.role().name()));
+        String tenant = claims.tenantId() != null ? claims.tenantId() : TenantSchema.DEFAULT_SCHEMA;
+        if (claims.role() == UserRole.SUPER_ADMIN
+                && TenantSchema.normalizeTenantId(tenant).equals(TenantSchema.normalizeTenantId(operatorTenant))) {
+            authorities.add(new SimpleGrantedAuthority("ROLE_" + SecurityConfig.OPERATOR_ROLE));
+        }
+        return authorities;
     }
 }
\ No newline at end of file
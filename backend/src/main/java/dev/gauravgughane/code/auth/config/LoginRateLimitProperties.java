@@ -0,0 +1,88 @@
+package dev.gauravgughane.code.auth.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+// auth.login.rate-limit.* - token bucket sizes for login attempts
+@Component
+@ConfigurationProperties(prefix = "auth.login.rate-limit")
+public class LoginRateLimitProperties {
+
+    private boolean enabled = true;
+    // Buckets untouched for this long are dropped
+    private Duration idleEviction = Duration.ofMinutes(10);
+    private long maxBuckets = 200_000;
+
+    private Limit tenant = new Limit(600, 200);
+    private Limit email = new Limit(10, 5);
+    // Client IPs are limited across all tenants, so per-tenant overrides do not apply here
+    private Limit ip = new Limit(60, 20);
+
+    // Per-tenant overrides of the tenant and email limits, keyed by tenant id
+    private Map<String, TenantLimits> tenants = new HashMap<>();
+
+    public Limit tenantLimitFor(String tenantId) {
+        TenantLimits override = tenants.get(tenantId);
+        return override != null && override.getTenant() != null ? override.getTenant() : tenant;
+    }
+
+    public Limit emailLimitFor(String tenantId) {
+        TenantLimits override = tenants.get(tenantId);
+        return override != null && override.getEmail() != null ? override.getEmail() : email;
+    }
+
+    public static class Limit {
+        private int permitsPerMinute;
+        private int burst;
+
+        public Limit() {}
+
+        public Limit(int permitsPerMinute, int burst) {
+            this.permitsPerMinute = permitsPerMinute;
+            this.burst = burst;
+        }
+
+        public int getPermitsPerMinute() { return permitsPerMinute; }
+        public void setPermitsPerMinute(int permitsPerMinute) { this.permitsPerMinute = permitsPerMinute; }
+
+        public int getBurst() { return burst; }
+        public void setBurst(int burst) { this.burst = burst; }
+    }
+
+    public static class TenantLimits {
+        private Limit tenant;
+        private Limit email;
+
+        public Limit getTenant() { return tenant; }
+        public void setTenant(Limit tenant) { this.tenant = tenant; }
+
+        public Limit getEmail() { return email; }
+        public void setEmail(Limit email) { this.email = email; }
+    }
+
+    // Getters & Setters
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public Duration getIdleEviction() { return idleEviction; }
+    public void setIdleEviction(Duration idleEviction) { this.idleEviction = idleEviction; }
+
+    public long getMaxBuckets() { return maxBuckets; }
+    public void setMaxBuckets(long maxBuckets) { this.maxBuckets = maxBuckets; }
+
+    public Limit getTenant() { return tenant; }
+    public void setTenant(Limit tenant) { this.tenant = tenant; }
+
+    public Limit getEmail() { return email; }
+    public void setEmail(Limit email) { this.email = email; }
+
+    public Limit getIp() { return ip; }
+    public void setIp(Limit ip) { this.ip = ip; }
+
+    public Map<String, TenantLimits> getTenants() { return tenants; }
+    public void setTenants(Map<String, TenantLimits> tenants) { this.tenants = tenants; }
+}
@@ -0,0 +1,97 @@
+package dev.gauravgughane.code.auth.config;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.common.KeyValues;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.config.MeterFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.actuate.metrics.data.DefaultRepositoryTagsProvider;
+import org.springframework.boot.actuate.metrics.data.RepositoryTagsProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.data.repository.core.support.RepositoryMethodInvocationListener.RepositoryMethodInvocation;
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.http.server.observation.ServerRequestObservationConvention;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tenant tagging for the built-in meters (http.server.requests, spring.data.repository.invocations)
+ * and the guard that keeps the tenant tag from growing without bound.
+ */
+@Configuration
+public class MetricsConfig {
+
+    public static final String TENANT_TAG = "tenant";
+    public static final String OVERFLOW_TENANT = "other";
+
+    /**
+     * The first max-tenant-tags distinct tenants get their own series; the rest share
+     * tenant="other". Every series is multiplied by the tenant count, so this is the
+     * ceiling on what one noisy deployment can push to Prometheus.
+     */
+    @Bean
+    public MeterFilter tenantTagLimiter(@Value("${auth.metrics.max-tenant-tags:100}") int maxTenantTags) {
+        Set<String> seen = ConcurrentHashMap.newKeySet();
+        return new MeterFilter() {
+            @Override
+            public Meter.Id map(Meter.Id id) {
+                String tenant = id.getTag(TENANT_TAG);
+                if (tenant == null || seen.contains(tenant)) {
+                    return id;
+                }
+                // Racy by a few entries at the limit, which is fine for a guard
+                if (seen.size() < maxTenantTags) {
+                    seen.add(tenant);
+                    return id;
+                }
+                return id.replaceTags(Tags.of(id.getTagsAsIterable()).and(TENANT_TAG, OVERFLOW_TENANT));
+            }
+        };
+    }
+
+    // Adds the tenant resolved by TenantFilter to http.server.requests
+    @Bean
+    public ServerRequestObservationConvention tenantServerRequestObservationConvention() {
+        return new DefaultServerRequestObservationConvention() {
+            @Override
+            public KeyValues getLowCardinalityKeyValues(ServerRequestObservationContext context) {
+                Object tenant = context.getCarrier().getAttribute(TenantFilter.TENANT_ATTRIBUTE);
+                return super.getLowCardinalityKeyValues(context)
+                        .and(KeyValue.of(TENANT_TAG, tenant != null ? tenant.toString() : "none"));
+            }
+        };
+    }
+
+    @Bean
+    public RepositoryTagsProvider tenantRepositoryTagsProvider() {
+        return new DefaultRepositoryTagsProvider() {
+            @Override
+            public Iterable<Tag> repositoryTags(RepositoryMethodInvocation invocation) {
+                return Tags.of(super.repositoryTags(invocation)).and(TENANT_TAG, TenantContext.getSchema());
+            }
+        };
+    }
+
+    // Feeds repository call time into the request trace as the db.query stage
+    @Bean
+    public static BeanPostProcessor repositoryTraceBeanPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addInvocationListener(
+                            invocation -> RequestTrace.record("db.query", invocation.getDuration(TimeUnit.NANOSECONDS))));
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -1,50 +1,32 @@
 package dev.gauravgughane.code.auth.config;
 
-import org.hibernate.engine.jdbc.connections.spi.AbstractDataSourceBasedMultiTenantConnectionProviderImpl;
-import org.springframework.beans.factory.annotation.Autowired;
+import dev.gauravgughane.code.auth.service.TenantRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 
-import javax.sql.DataSource;
-import java.sql.Connection;
-import java.sql.SQLException;
-
 @Configuration
 public class MultiTenantConfig {
 
-    @Autowired
-    private DataSource dataSource;
-
     @Bean
     @Primary
-    public AbstractDataSourceBasedMultiTenantConnectionProviderImpl<String> multiTenantConnectionProvider() {
-        return new AbstractDataSourceBasedMultiTenantConnectionProviderImpl<String>() {
-            @Override
-            protected DataSource selectAnyDataSource() {
-                return dataSource;
-            }
-
-            @Override
-            protected DataSource selectDataSource(String tenantIdentifier) {
-                return dataSource;
-            }
-
-            @Override
-            public Connection getConnection(String tenantIdentifier) throws SQLException {
-                final Connection connection = dataSource.getConnection();
-                connection.createStatement().execute("SET search_path TO " + tenantIdentifier);
-                return connection;
-            }
+    public TenantConnectionProvider multiTenantConnectionProvider(ShardRouter shardRouter, ReplicaRouter replicaRouter,
+                                                                  TenantRegistry tenantRegistry, TenantBulkhead bulkhead,
+                                                                  MeterRegistry meterRegistry) {
+        return new TenantConnectionProvider(shardRouter, replicaRouter, tenantRegistry, bulkhead, meterRegistry);
+    }
 
-            @Override
-            public void releaseConnection(String tenantIdentifier, Connection connection) throws SQLException {
-                try {
-                    connection.createStatement().execute("SET search_path TO public");
-                } finally {
-                    connection.close();
-                }
-            }
+    // Hand Hibernate the Spring-managed instances instead of letting it instantiate classes by name
+    @Bean
+    public HibernatePropertiesCustomizer multiTenancyCustomizer(
+            TenantConnectionProvider connectionProvider,
+            CurrentTenantIdentifierResolverImpl tenantIdentifierResolver) {
+        return hibernateProperties -> {
+            hibernateProperties.put(AvailableSettings.MULTI_TENANT_CONNECTION_PROVIDER, connectionProvider);
+            hibernateProperties.put(AvailableSettings.MULTI_TENANT_IDENTIFIER_RESOLVER, tenantIdentifierResolver);
         };
     }
-}
\ No newline at end of file
+}
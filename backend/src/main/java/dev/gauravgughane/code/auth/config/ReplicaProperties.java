@@ -0,0 +1,41 @@
+package dev.gauravgughane.code.auth.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// auth.replicas.* - streaming replicas that serve read-only transactions, keyed by shard id
+@Component
+@ConfigurationProperties(prefix = "auth.replicas")
+public class ReplicaProperties {
+
+    // e.g. nodes.main[0].url=...; pool settings not given are copied from spring.datasource.hikari
+    private Map<String, List<ShardProperties.Node>> nodes = new LinkedHashMap<>();
+
+    // Replicas further behind than this stop serving reads until they catch up
+    private Duration maxLag = Duration.ofSeconds(2);
+
+    // Short, so a replica that went away costs a read little before it falls back to the primary
+    private Duration connectionTimeout = Duration.ofSeconds(1);
+
+    // Longest a session's reads wait on the primary for a replica to replay its last write;
+    // also how long a tenant stays on the primary after a shard move
+    private Duration pinAfterWrite = Duration.ofSeconds(5);
+
+    // Getters & Setters
+    public Map<String, List<ShardProperties.Node>> getNodes() { return nodes; }
+    public void setNodes(Map<String, List<ShardProperties.Node>> nodes) { this.nodes = nodes; }
+
+    public Duration getMaxLag() { return maxLag; }
+    public void setMaxLag(Duration maxLag) { this.maxLag = maxLag; }
+
+    public Duration getConnectionTimeout() { return connectionTimeout; }
+    public void setConnectionTimeout(Duration connectionTimeout) { this.connectionTimeout = connectionTimeout; }
+
+    public Duration getPinAfterWrite() { return pinAfterWrite; }
+    public void setPinAfterWrite(Duration pinAfterWrite) { this.pinAfterWrite = pinAfterWrite; }
+}
@@ -0,0 +1,387 @@
+package dev.gauravgughane.code.auth.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Sends connections for read-only transactions (@Transactional(readOnly = true)) to a
+ * streaming replica of the tenant's shard; everything else stays on the primary.
+ *
+ * Spring marks a transaction read-only only after it has begun, while Hibernate borrows
+ * the connection during begin, so the flag is captured here as a TransactionExecutionListener
+ * (registered with the transaction manager by Spring Boot).
+ *
+ * A replica serves reads only while its last check found it reachable and no more than
+ * auth.replicas.max-lag behind. Reads see their own writes: after a write commits, the rest
+ * of that request stays on the primary, and the session (tenant and authenticated user)
+ * reads from a replica again only once the replica has replayed the primary's WAL up to
+ * the write, checked by LSN on the borrowed connection. Other users of the tenant are not
+ * held back. auth.replicas.pin-after-write bounds how long a session waits for that.
+ */
+@Component
+public class ReplicaRouter implements TransactionExecutionListener {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRouter.class);
+
+    // Zero when idle or fully replayed; otherwise the age of the last replayed transaction
+    private static final String LAG_QUERY = "SELECT CASE WHEN NOT pg_is_in_recovery() "
+            + "OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 "
+            + "ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) END";
+
+    // Set between beforeBegin and afterBegin of a read-only transaction
+    private static final ThreadLocal<Boolean> BEGINNING_READ_ONLY = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> PRIMARY_ONLY = new ThreadLocal<>();
+
+    // Request attribute set once the request has committed a write
+    private static final String WROTE_ATTRIBUTE = ReplicaRouter.class.getName() + ".wrote";
+
+    private final ShardRouter shardRouter;
+    private final ReplicaProperties properties;
+    private final Map<String, List<Replica>> replicasByShard;
+    // Tenant schema -> nanoTime its reads may use replicas again (after a shard move)
+    private final Map<String, Long> pinnedUntil = new ConcurrentHashMap<>();
+    // "schema|user" -> the session's last write, until a replica is seen past it
+    private final Map<String, SessionPin> sessionPins = new ConcurrentHashMap<>();
+    private final long pinNanos;
+    private final AtomicInteger cursor = new AtomicInteger();
+
+    private final Counter replicaReads;
+    private final Counter pinnedReads;
+    private final Counter unavailableReads;
+
+    public ReplicaRouter(ShardRouter shardRouter, ReplicaProperties properties,
+                         MeterRegistry meterRegistry) throws SQLException {
+        this.shardRouter = shardRouter;
+        this.properties = properties;
+        this.pinNanos = properties.getPinAfterWrite().toNanos();
+        Map<String, List<Replica>> replicas = new LinkedHashMap<>();
+        for (Map.Entry<String, List<ShardProperties.Node>> shard : properties.getNodes().entrySet()) {
+            if (!shardRouter.exists(shard.getKey())) {
+                throw new IllegalStateException("auth.replicas.nodes." + shard.getKey() + " names an unknown shard");
+            }
+            List<Replica> pools = new ArrayList<>();
+            for (ShardProperties.Node node : shard.getValue()) {
+                String name = poolName(shard.getKey(), pools.size());
+                HikariDataSource pool = ShardRouter.pool(shardRouter.main(), name, node, meterRegistry, config -> {
+                    config.setConnectionTimeout(properties.getConnectionTimeout().toMillis());
+                    // Start even when the replica is down; it joins once a check reaches it
+                    config.setInitializationFailTimeout(-1);
+                });
+                Replica replica = new Replica(name, shard.getKey(), pool);
+                Gauge.builder("auth.replica.lag", replica, r -> r.lagSeconds)
+                        .description("Replication lag of the replica at its last check, in seconds")
+                        .baseUnit("seconds")
+                        .tag("replica", name)
+                        .register(meterRegistry);
+                Gauge.builder("auth.replica.healthy", replica, r -> r.healthy ? 1 : 0)
+                        .description("1 while the replica serves reads")
+                        .tag("replica", name)
+                        .register(meterRegistry);
+                pools.add(replica);
+            }
+            replicas.put(shard.getKey(), List.copyOf(pools));
+        }
+        this.replicasByShard = replicas;
+        if (!replicas.isEmpty()) {
+            log.info("Read-only transactions use replicas {}", replicas);
+        }
+
+        this.replicaReads = readCounter(meterRegistry, "replica");
+        this.pinnedReads = readCounter(meterRegistry, "pinned");
+        this.unavailableReads = readCounter(meterRegistry, "unavailable");
+    }
+
+    // Name of the index-th replica pool of the shard, also its TenantBulkhead pool
+    static String poolName(String shard, int index) {
+        return "replica-" + shard + "-" + index;
+    }
+
+    public boolean enabled() {
+        return !replicasByShard.isEmpty();
+    }
+
+    /**
+     * The replica a read-only transaction of the tenant should borrow from, or null when
+     * the caller should use the primary: not read-only, pinned, or no healthy replica.
+     * Chosen before borrowing, so the caller can queue for that replica's pool.
+     */
+    Replica replicaFor(String shard, String schema) {
+        List<Replica> replicas = replicasByShard.get(shard);
+        if (replicas == null || !isReadOnly()) {
+            return null;
+        }
+        if (isPinned(schema) || wroteInRequest()) {
+            pinnedReads.increment();
+            return null;
+        }
+        Replica replica = next(replicas);
+        if (replica == null) {
+            unavailableReads.increment();
+        }
+        return replica;
+    }
+
+    /**
+     * A connection from the replica, or null when the caller should use the primary: the
+     * replica cannot give one (it is marked down), or it has not yet replayed the current
+     * session's last write.
+     */
+    Connection borrow(Replica replica, String schema) {
+        Connection connection;
+        try {
+            connection = replica.pool.getConnection();
+        } catch (SQLException e) {
+            markDown(replica, e);
+            unavailableReads.increment();
+            return null;
+        }
+        String key = sessionKey(schema);
+        SessionPin pin = key != null ? sessionPins.get(key) : null;
+        if (pin != null) {
+            if (pin.until - System.nanoTime() > 0 && !hasReplayed(connection, replica, pin)) {
+                closeQuietly(connection);
+                pinnedReads.increment();
+                return null;
+            }
+            // Caught up (or waited long enough); the session reads from replicas again
+            sessionPins.remove(key, pin);
+        }
+        replicaReads.increment();
+        return connection;
+    }
+
+    // Runs the lookup on the primary even inside a read-only transaction
+    public <T> T onPrimary(Supplier<T> lookup) {
+        Boolean previous = PRIMARY_ONLY.get();
+        PRIMARY_ONLY.set(Boolean.TRUE);
+        try {
+            return lookup.get();
+        } finally {
+            if (previous == null) {
+                PRIMARY_ONLY.remove();
+            }
+        }
+    }
+
+    // Keeps all of the tenant's reads on the primary for pin-after-write, e.g. after it moved shards
+    public void pin(String schema) {
+        if (enabled() && schema != null) {
+            pinnedUntil.put(schema, System.nanoTime() + pinNanos);
+        }
+    }
+
+    @Override
+    public void beforeBegin(TransactionExecution transaction) {
+        if (transaction.isReadOnly()) {
+            BEGINNING_READ_ONLY.set(Boolean.TRUE);
+        }
+    }
+
+    @Override
+    public void afterBegin(TransactionExecution transaction, Throwable beginFailure) {
+        BEGINNING_READ_ONLY.remove();
+    }
+
+    // Only marks the write; its LSN is looked up if and when the session next wants a replica
+    @Override
+    public void afterCommit(TransactionExecution transaction, Throwable commitFailure) {
+        if (transaction.isReadOnly() || commitFailure != null || !enabled()) {
+            return;
+        }
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null) {
+            request.setAttribute(WROTE_ATTRIBUTE, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+        }
+        String key = sessionKey(TenantContext.getSchema());
+        if (key != null) {
+            sessionPins.put(key, new SessionPin(System.nanoTime() + pinNanos));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${auth.replicas.check-interval:5s}")
+    public void check() {
+        if (!enabled()) {
+            return;
+        }
+        long now = System.nanoTime();
+        pinnedUntil.values().removeIf(until -> until - now <= 0);
+        sessionPins.values().removeIf(pin -> pin.until - now <= 0);
+        double maxLag = properties.getMaxLag().toMillis() / 1000.0;
+        for (List<Replica> replicas : replicasByShard.values()) {
+            for (Replica replica : replicas) {
+                try (Connection connection = replica.pool.getConnection();
+                     Statement stmt = connection.createStatement();
+                     ResultSet rs = stmt.executeQuery(LAG_QUERY)) {
+                    rs.next();
+                    double lag = rs.getDouble(1);
+                    boolean caughtUp = !rs.wasNull() && lag <= maxLag;
+                    replica.lagSeconds = rs.wasNull() ? Double.NaN : lag;
+                    if (caughtUp != replica.healthy) {
+                        if (caughtUp) {
+                            log.info("Replica {} serves reads again (lag {} s)", replica.name, lag);
+                        } else {
+                            log.warn("Replica {} is {} s behind; reads go to the primary", replica.name, replica.lagSeconds);
+                        }
+                    }
+                    replica.healthy = caughtUp;
+                } catch (SQLException e) {
+                    markDown(replica, e);
+                }
+            }
+        }
+    }
+
+    private boolean isReadOnly() {
+        if (PRIMARY_ONLY.get() != null) {
+            return false;
+        }
+        return BEGINNING_READ_ONLY.get() != null || TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    private boolean isPinned(String schema) {
+        Long until = pinnedUntil.get(schema);
+        return until != null && until - System.nanoTime() > 0;
+    }
+
+    private static boolean wroteInRequest() {
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        return request != null && request.getAttribute(WROTE_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) != null;
+    }
+
+    // Tenant and authenticated user; null for anonymous requests and background work
+    private static String sessionKey(String schema) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (schema == null || authentication == null || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return schema + "|" + authentication.getName();
+    }
+
+    // The primary's LSN is read once per pin, after the write, so it covers the write's commit record
+    private boolean hasReplayed(Connection connection, Replica replica, SessionPin pin) {
+        try {
+            String lsn = pin.lsn;
+            if (lsn == null) {
+                try (Connection primary = shardRouter.dataSource(replica.shard).getConnection();
+                     Statement stmt = primary.createStatement();
+                     ResultSet rs = stmt.executeQuery("SELECT pg_current_wal_lsn()::text")) {
+                    rs.next();
+                    lsn = rs.getString(1);
+                }
+                pin.lsn = lsn;
+            }
+            try (PreparedStatement stmt = connection.prepareStatement(
+                    "SELECT NOT pg_is_in_recovery() OR pg_last_wal_replay_lsn() >= ?::pg_lsn")) {
+                stmt.setString(1, lsn);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    return rs.next() && rs.getBoolean(1);
+                }
+            }
+        } catch (SQLException e) {
+            log.debug("Replay position check on {} failed: {}", replica.name, e.getMessage());
+            return false;
+        }
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            log.debug("Closing replica connection failed: {}", e.getMessage());
+        }
+    }
+
+    private Replica next(List<Replica> replicas) {
+        int size = replicas.size();
+        int start = Math.floorMod(cursor.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.healthy) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    private static void markDown(Replica replica, SQLException e) {
+        if (replica.healthy) {
+            log.warn("Replica {} unreachable; reads go to the primary: {}", replica.name, e.getMessage());
+        }
+        replica.healthy = false;
+        replica.lagSeconds = Double.NaN;
+    }
+
+    private static Counter readCounter(MeterRegistry registry, String route) {
+        return Counter.builder("auth.replica.reads")
+                .description("Read-only connection requests by where they were served")
+                .tag("route", route)
+                .register(registry);
+    }
+
+    @PreDestroy
+    public void close() {
+        replicasByShard.values().forEach(replicas -> replicas.forEach(replica -> replica.pool.close()));
+    }
+
+    static final class Replica {
+        final String name;
+        final String shard;
+        final HikariDataSource pool;
+        // Not serving until the first check has seen it
+        volatile boolean healthy;
+        volatile double lagSeconds = Double.NaN;
+
+        Replica(String name, String shard, HikariDataSource pool) {
+            this.name = name;
+            this.shard = shard;
+            this.pool = pool;
+        }
+
+        String name() {
+            return name;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    private static final class SessionPin {
+        final long until;
+        // Primary WAL position at or after the write; looked up on first use
+        volatile String lsn;
+
+        SessionPin(long until) {
+            this.until = until;
+        }
+    }
+}
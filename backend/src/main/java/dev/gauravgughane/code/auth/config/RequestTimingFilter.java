@@ -0,0 +1,37 @@
+package dev.gauravgughane.code.auth.config;
+
+import jakarta.servlet.*;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+// Outermost application filter, so the trace also covers the security chain (JWT verify)
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class RequestTimingFilter implements Filter {
+
+    private final SlowRequestLog slowRequestLog;
+
+    public RequestTimingFilter(SlowRequestLog slowRequestLog) {
+        this.slowRequestLog = slowRequestLog;
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        RequestTrace trace = RequestTrace.begin(httpRequest.getMethod(), httpRequest.getRequestURI());
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            trace.end((String) httpRequest.getAttribute(TenantFilter.TENANT_ATTRIBUTE),
+                    ((HttpServletResponse) response).getStatus());
+            slowRequestLog.offer(trace);
+        }
+    }
+}
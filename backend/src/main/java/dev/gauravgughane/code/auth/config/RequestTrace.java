@@ -0,0 +1,74 @@
+package dev.gauravgughane.code.auth.config;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Per-request stage timings (jwt, db.acquire, db.query, password, ...) collected on the
+ * request thread. Stages can nest: db.query includes the db.acquire it triggered. Work
+ * handed to other threads is recorded by the caller around the hand-off.
+ */
+public final class RequestTrace {
+
+    private static final ThreadLocal<RequestTrace> current = new ThreadLocal<>();
+
+    private final String method;
+    private final String path;
+    private final Instant startedAt = Instant.now();
+    private final long startNanos = System.nanoTime();
+    // stage -> {total nanos, count}
+    private final Map<String, long[]> stages = new LinkedHashMap<>();
+
+    private String tenant;
+    private int status;
+    private long durationNanos;
+
+    private RequestTrace(String method, String path) {
+        this.method = method;
+        this.path = path;
+    }
+
+    static RequestTrace begin(String method, String path) {
+        RequestTrace trace = new RequestTrace(method, path);
+        current.set(trace);
+        return trace;
+    }
+
+    // No-op outside a traced request (scheduled jobs, background writers)
+    public static void record(String stage, long nanos) {
+        RequestTrace trace = current.get();
+        if (trace != null) {
+            long[] totals = trace.stages.computeIfAbsent(stage, s -> new long[2]);
+            totals[0] += nanos;
+            totals[1]++;
+        }
+    }
+
+    void end(String tenant, int status) {
+        current.remove();
+        this.tenant = tenant;
+        this.status = status;
+        this.durationNanos = System.nanoTime() - startNanos;
+    }
+
+    public long durationNanos() {
+        return durationNanos;
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> stageMillis = new LinkedHashMap<>();
+        stages.forEach((stage, totals) -> stageMillis.put(stage,
+                Map.of("ms", totals[0] / 1_000_000.0, "count", totals[1])));
+
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("startedAt", startedAt.toString());
+        map.put("method", method);
+        map.put("path", path);
+        map.put("tenant", tenant);
+        map.put("status", status);
+        map.put("ms", durationNanos / 1_000_000.0);
+        map.put("stages", stageMillis);
+        return map;
+    }
+}
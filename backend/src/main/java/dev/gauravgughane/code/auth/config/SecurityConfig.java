@@ -1,12 +1,21 @@
 package dev.gauravgughane.code.auth.config;
 
+import dev.gauravgughane.code.auth.entity.UserRole;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.security.web.servlet.util.matcher.MvcRequestMatcher;
 import org.springframework.web.servlet.handler.HandlerMappingIntrospector;
 
@@ -14,24 +23,86 @@ import org.springframework.web.servlet.handler.HandlerMappingIntrospector;
 @EnableWebSecurity
 public class SecurityConfig {
 
+    // Roles that may manage the users of their own tenant
+    private static final String[] ADMIN_ROLES = {UserRole.ADMIN.name(), UserRole.SUPER_ADMIN.name()};
+
+    // Deployment-wide operations; granted by JwtAuthenticationFilter to SUPER_ADMINs of auth.operator.tenant
+    static final String OPERATOR_ROLE = "OPERATOR";
+
+    // Service clients (auth.service.clients) allowed to call POST /api/auth/introspect
+    private static final String INTROSPECT_ROLE = "INTROSPECT";
+
+    @Bean
+    public PasswordEncoder passwordEncoder(@Value("${auth.password.bcrypt-strength:10}") int strength) {
+        return new BCryptPasswordEncoder(strength);
+    }
+
+    // The JWT and tenant filters run inside the security chain (below); without these Boot would
+    // also register them as plain servlet filters that run after authorization has already failed
+    @Bean
+    public FilterRegistrationBean<JwtAuthenticationFilter> jwtFilterRegistration(JwtAuthenticationFilter filter) {
+        FilterRegistrationBean<JwtAuthenticationFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public FilterRegistrationBean<TenantFilter> tenantFilterRegistration(TenantFilter filter) {
+        FilterRegistrationBean<TenantFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setEnabled(false);
+        return registration;
     }
 
+    // Introspection answers for any token, so it is only open to resource servers with client
+    // credentials (HTTP Basic); it must match before the /api/auth/** permitAll below
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    @Order(1)
+    public SecurityFilterChain introspectionFilterChain(HttpSecurity http,
+                                                        ServiceClientAuthenticationProvider serviceClients) throws Exception {
+        http
+    .securityMatcher("/api/auth/introspect")
+    .csrf().disable()
+    .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+    .authenticationProvider(serviceClients)
+    .authorizeHttpRequests(authz -> authz.anyRequest().hasRole(INTROSPECT_ROLE))
+    // Answer 401 directly; sendError would dispatch to /error, which the main chain turns into 403
+    .httpBasic(basic -> basic.authenticationEntryPoint((request, response, e) -> {
+        response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Basic realm=\"auth\"");
+        response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+    }))
+    .formLogin().disable();
+
+        return http.build();
+    }
+
+    @Bean
+    @Order(2)
+    public SecurityFilterChain filterChain(HttpSecurity http, JwtAuthenticationFilter jwtAuthenticationFilter,
+                                           TenantFilter tenantFilter) throws Exception {
         http
     .csrf().disable()
     .authorizeHttpRequests(authz -> authz
         .requestMatchers("/api/auth/**").permitAll()
         .requestMatchers("/api/health").permitAll()
+        .requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
+        .requestMatchers("/.well-known/jwks.json").permitAll()
         .requestMatchers("/login.html").permitAll()
         .requestMatchers("/static/**").permitAll()
+        .requestMatchers(HttpMethod.DELETE, "/api/admin/users/*").hasAnyRole(ADMIN_ROLES)
+        .requestMatchers(HttpMethod.POST, "/api/admin/users/*/revoke-tokens").hasAnyRole(ADMIN_ROLES)
+        .requestMatchers(HttpMethod.POST, "/api/admin/users/import").hasAnyRole(ADMIN_ROLES)
+        .requestMatchers("/api/admin/export/**").hasAnyRole(ADMIN_ROLES)
+        .requestMatchers("/api/admin/shards/**").hasRole(OPERATOR_ROLE)
+        .requestMatchers("/api/admin/revocations/**").hasRole(OPERATOR_ROLE)
+        // Tagged by tenant schema and request path, so they describe every tenant at once
+        .requestMatchers("/actuator/prometheus", "/actuator/metrics/**", "/actuator/slowrequests").hasRole(OPERATOR_ROLE)
         .anyRequest().authenticated()
     )
     .httpBasic().disable()  
-    .formLogin().disable();
+    .formLogin().disable()
+    .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+    // Tenant is resolved after the token, so the tenant claim can take precedence over headers
+    .addFilterAfter(tenantFilter, JwtAuthenticationFilter.class);
 
         return http.build();
     }
@@ -0,0 +1,78 @@
+package dev.gauravgughane.code.auth.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Checks HTTP Basic credentials of service clients (auth.service.clients) and grants their
+ * configured roles as ROLE_&lt;role&gt;. Client secrets are long random values, so they are
+ * compared as SHA-256 digests in constant time; a slow password hash here would hand
+ * callers an easy way to burn CPU.
+ */
+@Component
+public class ServiceClientAuthenticationProvider implements AuthenticationProvider {
+
+    private static final Logger log = LoggerFactory.getLogger(ServiceClientAuthenticationProvider.class);
+
+    // Compared against for unknown client ids, so they take as long as known ones
+    private static final byte[] NO_SECRET = new byte[32];
+
+    private record Client(byte[] secretDigest, List<GrantedAuthority> authorities) {}
+
+    private final Map<String, Client> clients;
+
+    public ServiceClientAuthenticationProvider(ServiceClientProperties properties) {
+        this.clients = properties.getClients().entrySet().stream()
+                .filter(entry -> entry.getValue().getSecret() != null && !entry.getValue().getSecret().isBlank())
+                .collect(Collectors.toUnmodifiableMap(Map.Entry::getKey, entry -> new Client(
+                        sha256(entry.getValue().getSecret()),
+                        entry.getValue().getRoles().stream()
+                                .map(role -> (GrantedAuthority) new SimpleGrantedAuthority(
+                                        "ROLE_" + role.trim().toUpperCase(Locale.ROOT)))
+                                .toList())));
+        if (clients.size() < properties.getClients().size()) {
+            log.warn("Service clients without a secret are ignored");
+        }
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) {
+        String clientId = authentication.getName();
+        Object credentials = authentication.getCredentials();
+        Client client = clients.get(clientId);
+        byte[] presented = sha256(credentials != null ? credentials.toString() : "");
+        boolean matches = MessageDigest.isEqual(presented, client != null ? client.secretDigest() : NO_SECRET);
+        if (client == null || !matches) {
+            throw new BadCredentialsException("Invalid client credentials");
+        }
+        return UsernamePasswordAuthenticationToken.authenticated(clientId, null, client.authorities());
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return UsernamePasswordAuthenticationToken.class.isAssignableFrom(authentication);
+    }
+
+    private static byte[] sha256(String value) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
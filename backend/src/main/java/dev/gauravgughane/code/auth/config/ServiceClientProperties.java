@@ -0,0 +1,34 @@
+package dev.gauravgughane.code.auth.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+// auth.service.* - other services that call this one with HTTP Basic credentials, keyed by client id
+@Component
+@ConfigurationProperties(prefix = "auth.service")
+public class ServiceClientProperties {
+
+    // e.g. clients.orders.secret=${ORDERS_CLIENT_SECRET}, clients.orders.roles=INTROSPECT
+    private Map<String, Client> clients = new LinkedHashMap<>();
+
+    // Getters & Setters
+    public Map<String, Client> getClients() { return clients; }
+    public void setClients(Map<String, Client> clients) { this.clients = clients; }
+
+    public static class Client {
+        // Long random value; compared by SHA-256, so it must not be a human password
+        private String secret;
+        private Set<String> roles = new LinkedHashSet<>();
+
+        public String getSecret() { return secret; }
+        public void setSecret(String secret) { this.secret = secret; }
+
+        public Set<String> getRoles() { return roles; }
+        public void setRoles(Set<String> roles) { this.roles = roles; }
+    }
+}
@@ -0,0 +1,53 @@
+package dev.gauravgughane.code.auth.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+// auth.shards.* - databases tenant schemas are spread over, besides the main spring.datasource
+@Component
+@ConfigurationProperties(prefix = "auth.shards")
+public class ShardProperties {
+
+    // least-loaded or hash; see ShardPlacementPolicy
+    private String placement = "least-loaded";
+
+    // Shards that keep their tenants but get no new ones (e.g. while being drained)
+    private Set<String> closed = new HashSet<>();
+
+    private Map<String, Node> nodes = new LinkedHashMap<>();
+
+    // Getters & Setters
+    public String getPlacement() { return placement; }
+    public void setPlacement(String placement) { this.placement = placement; }
+
+    public Set<String> getClosed() { return closed; }
+    public void setClosed(Set<String> closed) { this.closed = closed; }
+
+    public Map<String, Node> getNodes() { return nodes; }
+    public void setNodes(Map<String, Node> nodes) { this.nodes = nodes; }
+
+    // One extra database; pool settings not given here are copied from spring.datasource.hikari
+    public static class Node {
+        private String url;
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+
+        public String getUrl() { return url; }
+        public void setUrl(String url) { this.url = url; }
+
+        public String getUsername() { return username; }
+        public void setUsername(String username) { this.username = username; }
+
+        public String getPassword() { return password; }
+        public void setPassword(String password) { this.password = password; }
+
+        public int getMaximumPoolSize() { return maximumPoolSize; }
+        public void setMaximumPoolSize(int maximumPoolSize) { this.maximumPoolSize = maximumPoolSize; }
+    }
+}
@@ -0,0 +1,106 @@
+package dev.gauravgughane.code.auth.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Connection pools per shard. The main shard is the Spring DataSource, which also holds
+ * the catalog (public.tenants, signing keys, schema pool); every other shard is a database
+ * from auth.shards.nodes with its own Hikari pool. Which shard a tenant lives on is
+ * public.tenants.shard, as cached by TenantRegistry.
+ *
+ * Every shard database is initialised with database/01-init-schemas.sql, so the tenant
+ * schema functions exist everywhere; only the main shard's public.tenants is read.
+ */
+@Component
+public class ShardRouter {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardRouter.class);
+
+    public static final String MAIN = "main";
+
+    private final DataSource main;
+    private final Map<String, DataSource> shards;
+
+    public ShardRouter(DataSource dataSource, ShardProperties properties, MeterRegistry meterRegistry) throws SQLException {
+        this.main = dataSource;
+        Map<String, DataSource> shards = new LinkedHashMap<>();
+        shards.put(MAIN, dataSource);
+        for (Map.Entry<String, ShardProperties.Node> node : properties.getNodes().entrySet()) {
+            if (MAIN.equals(node.getKey())) {
+                throw new IllegalStateException("auth.shards.nodes." + MAIN + " is reserved for spring.datasource");
+            }
+            shards.put(node.getKey(), pool(dataSource, "shard-" + node.getKey(), node.getValue(), meterRegistry, config -> {}));
+        }
+        this.shards = Collections.unmodifiableMap(shards);
+        if (shards.size() > 1) {
+            log.info("Routing tenants over shards {}", shards.keySet());
+        }
+    }
+
+    public DataSource main() {
+        return main;
+    }
+
+    public Set<String> shardIds() {
+        return shards.keySet();
+    }
+
+    public boolean exists(String shard) {
+        return shards.containsKey(shard);
+    }
+
+    public DataSource dataSource(String shard) {
+        DataSource dataSource = shards.get(shard != null ? shard : MAIN);
+        if (dataSource == null) {
+            throw new IllegalStateException("Unknown shard " + shard + "; configure auth.shards.nodes." + shard);
+        }
+        return dataSource;
+    }
+
+    static HikariDataSource pool(DataSource template, String poolName, ShardProperties.Node node,
+                                 MeterRegistry meterRegistry, Consumer<HikariConfig> customizer) throws SQLException {
+        HikariConfig config = new HikariConfig();
+        if (template.isWrapperFor(HikariDataSource.class)) {
+            // Timeouts, lifetimes and driver settings as configured for the main pool
+            template.unwrap(HikariDataSource.class).copyStateTo(config);
+        }
+        config.setJdbcUrl(node.getUrl());
+        if (node.getUsername() != null) {
+            config.setUsername(node.getUsername());
+        }
+        if (node.getPassword() != null) {
+            config.setPassword(node.getPassword());
+        }
+        config.setMaximumPoolSize(node.getMaximumPoolSize());
+        config.setMinimumIdle(Math.min(config.getMinimumIdle(), node.getMaximumPoolSize()));
+        config.setPoolName(poolName);
+        config.setMetricRegistry(null);
+        config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        customizer.accept(config);
+        return new HikariDataSource(config);
+    }
+
+    @PreDestroy
+    public void close() {
+        for (DataSource dataSource : shards.values()) {
+            if (dataSource != main && dataSource instanceof HikariDataSource pool) {
+                pool.close();
+            }
+        }
+    }
+}
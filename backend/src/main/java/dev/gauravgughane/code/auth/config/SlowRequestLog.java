@@ -0,0 +1,56 @@
+package dev.gauravgughane.code.auth.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the most recent requests that took longer than the threshold, with their stage
+ * breakdown. Fast requests never take the lock.
+ */
+@Component
+public class SlowRequestLog {
+
+    private final long thresholdNanos;
+    private final int capacity;
+    private final Deque<RequestTrace> recent;
+
+    public SlowRequestLog(@Value("${auth.metrics.slow-requests.threshold:250ms}") Duration threshold,
+                          @Value("${auth.metrics.slow-requests.capacity:100}") int capacity) {
+        this.thresholdNanos = threshold.toNanos();
+        this.capacity = Math.max(1, capacity);
+        this.recent = new ArrayDeque<>(this.capacity);
+    }
+
+    void offer(RequestTrace trace) {
+        if (trace.durationNanos() < thresholdNanos) {
+            return;
+        }
+        synchronized (recent) {
+            if (recent.size() == capacity) {
+                recent.removeFirst();
+            }
+            recent.addLast(trace);
+        }
+    }
+
+    // Slowest first
+    public List<Map<String, Object>> slowest(int limit) {
+        List<RequestTrace> snapshot;
+        synchronized (recent) {
+            snapshot = new ArrayList<>(recent);
+        }
+        return snapshot.stream()
+                .sorted(Comparator.comparingLong(RequestTrace::durationNanos).reversed())
+                .limit(limit)
+                .map(RequestTrace::toMap)
+                .toList();
+    }
+}
@@ -0,0 +1,26 @@
+package dev.gauravgughane.code.auth.config;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+// GET /actuator/slowrequests?limit=20 -> slowest recent requests with their stage timings
+@Component
+@Endpoint(id = "slowrequests")
+public class SlowRequestsEndpoint {
+
+    private final SlowRequestLog slowRequestLog;
+
+    public SlowRequestsEndpoint(SlowRequestLog slowRequestLog) {
+        this.slowRequestLog = slowRequestLog;
+    }
+
+    @ReadOperation
+    public List<Map<String, Object>> slowest(@Nullable Integer limit) {
+        return slowRequestLog.slowest(limit != null && limit > 0 ? limit : 20);
+    }
+}
@@ -0,0 +1,254 @@
+package dev.gauravgughane.code.auth.config;
+
+import dev.gauravgughane.code.auth.dto.TenantDescriptor;
+import dev.gauravgughane.code.auth.service.TenantRegistry;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Per-tenant admission in front of the connection pools.
+ *
+ * Every physical pool - the primary of each shard and each replica - has its own capacity
+ * and its own queue, so tenants only ever compete for the pool they are about to borrow
+ * from. Within a pool each tenant may hold at most its own limit of connections. When the
+ * pool's capacity is exhausted, waiting tenants are served by start-time weighted fair
+ * queuing: the backlogged tenant with the smallest virtual start tag goes next, and every
+ * grant advances that tenant's tag by 1/weight.
+ */
+@Component
+public class TenantBulkhead {
+
+    private final TenantPoolProperties properties;
+    private final TenantRegistry tenantRegistry;
+    // Pool name (shard id, or ReplicaRouter.poolName for replicas) -> its queue
+    private final Map<String, Pool> pools;
+
+    public TenantBulkhead(TenantPoolProperties properties,
+                          TenantRegistry tenantRegistry,
+                          ShardProperties shardProperties,
+                          ReplicaProperties replicaProperties,
+                          @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize,
+                          MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.tenantRegistry = tenantRegistry;
+
+        Map<String, Integer> sizes = new LinkedHashMap<>();
+        sizes.put(ShardRouter.MAIN, poolSize);
+        shardProperties.getNodes().forEach((shard, node) -> sizes.put(shard, node.getMaximumPoolSize()));
+        replicaProperties.getNodes().forEach((shard, nodes) -> {
+            for (int i = 0; i < nodes.size(); i++) {
+                sizes.put(ReplicaRouter.poolName(shard, i), nodes.get(i).getMaximumPoolSize());
+            }
+        });
+        Map<String, Pool> pools = new LinkedHashMap<>();
+        sizes.forEach((name, size) -> {
+            Pool pool = new Pool(properties.getCapacity() > 0 ? properties.getCapacity() : size);
+            Gauge.builder("tenant.connection.in_use", pool, Pool::inUse)
+                    .description("Connections currently held across all tenants")
+                    .tag("pool", name)
+                    .register(meterRegistry);
+            Gauge.builder("tenant.connection.waiting", pool, Pool::waiting)
+                    .description("Connection requests queued behind tenant limits or pool capacity")
+                    .tag("pool", name)
+                    .register(meterRegistry);
+            pools.put(name, pool);
+        });
+        this.pools = Map.copyOf(pools);
+    }
+
+    public void acquire(String tenant, String poolName) throws SQLException {
+        Pool pool = pool(poolName);
+        long remaining = properties.acquireTimeoutFor(tenant).toNanos();
+        pool.lock.lock();
+        try {
+            TenantShare share = pool.shares.computeIfAbsent(tenant, this::newShare);
+            if (share.waiters.isEmpty() && share.inUse < share.limit && pool.inUse < pool.capacity) {
+                share.inUse++;
+                pool.inUse++;
+                return;
+            }
+
+            Waiter waiter = new Waiter(pool.lock.newCondition());
+            if (share.waiters.isEmpty()) {
+                // A tenant coming back from idle does not get credit for the time it was away
+                share.virtualStart = Math.max(share.virtualStart, pool.virtualTime);
+                pool.backlogged.add(share);
+            }
+            share.waiters.addLast(waiter);
+
+            try {
+                while (!waiter.granted) {
+                    if (remaining <= 0) {
+                        abandon(pool, share, waiter);
+                        throw new SQLTransientConnectionException("Tenant " + tenant
+                                + " could not get a connection within "
+                                + properties.acquireTimeoutFor(tenant).toMillis() + "ms");
+                    }
+                    remaining = waiter.condition.awaitNanos(remaining);
+                }
+            } catch (InterruptedException e) {
+                if (waiter.granted) {
+                    releaseLocked(pool, share);
+                } else {
+                    abandon(pool, share, waiter);
+                }
+                Thread.currentThread().interrupt();
+                throw new SQLTransientConnectionException("Interrupted while waiting for a connection", e);
+            }
+        } finally {
+            pool.lock.unlock();
+        }
+    }
+
+    public void release(String tenant, String poolName) {
+        Pool pool = pool(poolName);
+        pool.lock.lock();
+        try {
+            TenantShare share = pool.shares.get(tenant);
+            if (share != null) {
+                releaseLocked(pool, share);
+            }
+        } finally {
+            pool.lock.unlock();
+        }
+    }
+
+    private Pool pool(String name) {
+        Pool pool = pools.get(name);
+        if (pool == null) {
+            throw new IllegalStateException("No connection pool named " + name);
+        }
+        return pool;
+    }
+
+    private void releaseLocked(Pool pool, TenantShare share) {
+        share.inUse--;
+        pool.inUse--;
+        dispatch(pool);
+        retireIfIdle(pool, share);
+    }
+
+    private void dispatch(Pool pool) {
+        while (pool.inUse < pool.capacity) {
+            TenantShare next = null;
+            for (TenantShare candidate : pool.backlogged) {
+                if (candidate.inUse < candidate.limit
+                        && (next == null || candidate.virtualStart < next.virtualStart)) {
+                    next = candidate;
+                }
+            }
+            if (next == null) {
+                return;
+            }
+
+            Waiter waiter = next.waiters.pollFirst();
+            waiter.granted = true;
+            waiter.condition.signal();
+
+            pool.virtualTime = Math.max(pool.virtualTime, next.virtualStart);
+            next.virtualStart += 1.0 / next.weight;
+            next.inUse++;
+            pool.inUse++;
+            if (next.waiters.isEmpty()) {
+                pool.backlogged.remove(next);
+            }
+        }
+    }
+
+    private void abandon(Pool pool, TenantShare share, Waiter waiter) {
+        share.waiters.remove(waiter);
+        if (share.waiters.isEmpty()) {
+            pool.backlogged.remove(share);
+        }
+        retireIfIdle(pool, share);
+    }
+
+    private void retireIfIdle(Pool pool, TenantShare share) {
+        // Keeps the map bounded by active tenants rather than every tenant ever seen
+        if (share.inUse == 0 && share.waiters.isEmpty()) {
+            pool.shares.remove(share.tenant);
+        }
+    }
+
+    private TenantShare newShare(String tenant) {
+        // Overrides stored in public.tenants win over configured defaults
+        TenantDescriptor descriptor = tenantRegistry.findBySchema(tenant);
+        int limit = descriptor != null && descriptor.connectionLimit() != null
+                ? descriptor.connectionLimit() : properties.limitFor(tenant);
+        int weight = descriptor != null && descriptor.connectionWeight() != null
+                ? descriptor.connectionWeight() : properties.weightFor(tenant);
+        return new TenantShare(tenant, Math.max(1, limit), Math.max(1, weight));
+    }
+
+    private static final class Pool {
+        final int capacity;
+        final ReentrantLock lock = new ReentrantLock();
+        final Map<String, TenantShare> shares = new HashMap<>();
+        final Set<TenantShare> backlogged = new LinkedHashSet<>();
+        int inUse;
+        double virtualTime;
+
+        Pool(int capacity) {
+            this.capacity = Math.max(1, capacity);
+        }
+
+        double inUse() {
+            lock.lock();
+            try {
+                return inUse;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        double waiting() {
+            lock.lock();
+            try {
+                int waiting = 0;
+                for (TenantShare share : backlogged) {
+                    waiting += share.waiters.size();
+                }
+                return waiting;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static final class TenantShare {
+        final String tenant;
+        final int limit;
+        final int weight;
+        final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+        int inUse;
+        double virtualStart;
+
+        TenantShare(String tenant, int limit, int weight) {
+            this.tenant = tenant;
+            this.limit = limit;
+            this.weight = weight;
+        }
+    }
+
+    private static final class Waiter {
+        final Condition condition;
+        boolean granted;
+
+        Waiter(Condition condition) {
+            this.condition = condition;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package dev.gauravgughane.code.auth.config;
+
+import dev.gauravgughane.code.auth.service.TenantRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.hibernate.engine.jdbc.connections.spi.MultiTenantConnectionProvider;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Schema-per-tenant connection provider that remembers which schema every pooled
+ * connection is bound to, so search_path is only switched when the tenant changes.
+ * Every borrow is served by the pool of the shard the tenant lives on, or by one of its
+ * replicas when the transaction is read-only (see ReplicaRouter). The pool is picked first
+ * and the borrow then queues in the TenantBulkhead for that pool, so one tenant cannot
+ * drain it.
+ *
+ * Connections go back to the pool still bound to their last tenant. Anything that
+ * borrows from the DataSource directly must therefore use schema-qualified names.
+ */
+public class TenantConnectionProvider implements MultiTenantConnectionProvider<String> {
+
+    private final ShardRouter shardRouter;
+    private final ReplicaRouter replicaRouter;
+    private final TenantRegistry tenantRegistry;
+    private final TenantBulkhead bulkhead;
+    private final MeterRegistry meterRegistry;
+
+    // Physical connection -> schema currently on its search_path. Weak keys so
+    // connections retired by the pool drop out on their own.
+    private final Map<Connection, String> boundSchemas = Collections.synchronizedMap(new WeakHashMap<>());
+
+    // Handed-out connection -> when and from which pool it was borrowed
+    private final Map<Connection, Borrow> borrowed = new ConcurrentHashMap<>();
+
+    private final Map<String, Timer> waitTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> holdTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> switchTimers = new ConcurrentHashMap<>();
+
+    public TenantConnectionProvider(ShardRouter shardRouter, ReplicaRouter replicaRouter, TenantRegistry tenantRegistry,
+                                    TenantBulkhead bulkhead, MeterRegistry meterRegistry) {
+        this.shardRouter = shardRouter;
+        this.replicaRouter = replicaRouter;
+        this.tenantRegistry = tenantRegistry;
+        this.bulkhead = bulkhead;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Connection getAnyConnection() throws SQLException {
+        return getConnection(TenantSchema.DEFAULT_SCHEMA);
+    }
+
+    @Override
+    public void releaseAnyConnection(Connection connection) throws SQLException {
+        releaseConnection(TenantSchema.DEFAULT_SCHEMA, connection);
+    }
+
+    @Override
+    public Connection getConnection(String tenantIdentifier) throws SQLException {
+        if (!TenantSchema.isValid(tenantIdentifier)) {
+            throw new SQLException("Invalid tenant identifier: " + tenantIdentifier);
+        }
+
+        long start = System.nanoTime();
+        String shard = tenantRegistry.shardOf(tenantIdentifier);
+        String pool = shard;
+        Connection connection = null;
+        ReplicaRouter.Replica replica = replicaRouter.replicaFor(shard, tenantIdentifier);
+        if (replica != null) {
+            bulkhead.acquire(tenantIdentifier, replica.name());
+            connection = replicaRouter.borrow(replica, tenantIdentifier);
+            if (connection != null) {
+                pool = replica.name();
+            } else {
+                bulkhead.release(tenantIdentifier, replica.name());
+            }
+        }
+        if (connection == null) {
+            bulkhead.acquire(tenantIdentifier, pool);
+            try {
+                connection = shardRouter.dataSource(shard).getConnection();
+            } catch (SQLException | RuntimeException e) {
+                bulkhead.release(tenantIdentifier, pool);
+                throw e;
+            }
+        }
+        try {
+            bindSchema(connection, tenantIdentifier);
+        } catch (SQLException | RuntimeException e) {
+            connection.close();
+            bulkhead.release(tenantIdentifier, pool);
+            throw e;
+        }
+
+        long acquired = System.nanoTime();
+        waitTimer(tenantIdentifier).record(acquired - start, TimeUnit.NANOSECONDS);
+        RequestTrace.record("db.acquire", acquired - start);
+        borrowed.put(connection, new Borrow(acquired, pool));
+        return connection;
+    }
+
+    @Override
+    public void releaseConnection(String tenantIdentifier, Connection connection) throws SQLException {
+        Borrow borrow = borrowed.remove(connection);
+        if (borrow != null) {
+            holdTimer(tenantIdentifier).record(System.nanoTime() - borrow.at(), TimeUnit.NANOSECONDS);
+        }
+        try {
+            // No reset to public: the next borrower for the same tenant skips the round trip
+            connection.close();
+        } finally {
+            if (borrow != null) {
+                bulkhead.release(tenantIdentifier, borrow.pool());
+            }
+        }
+    }
+
+    private record Borrow(long at, String pool) {}
+
+    private void bindSchema(Connection connection, String schema) throws SQLException {
+        // Switch on the physical connection: going through the pool proxy would mark the
+        // schema dirty and the pool would reset it on every return
+        Connection physical = connection.unwrap(Connection.class);
+        if (schema.equals(boundSchemas.get(physical))) {
+            return;
+        }
+        boundSchemas.remove(physical);
+        long start = System.nanoTime();
+        physical.setSchema(schema); // driver quotes the identifier
+        long elapsed = System.nanoTime() - start;
+        switchTimer(schema).record(elapsed, TimeUnit.NANOSECONDS);
+        RequestTrace.record("db.schema", elapsed);
+        if (connection.getAutoCommit()) {
+            // Outside a transaction the SET is durable for the session; inside one it could roll back
+            boundSchemas.put(physical, schema);
+        }
+    }
+
+    private Timer waitTimer(String tenant) {
+        return waitTimers.computeIfAbsent(tenant, t -> Timer.builder("tenant.connection.wait")
+                .description("Time spent waiting for a tenant connection permit and pool connection")
+                .tag("tenant", t)
+                .register(meterRegistry));
+    }
+
+    private Timer holdTimer(String tenant) {
+        return holdTimers.computeIfAbsent(tenant, t -> Timer.builder("tenant.connection.hold")
+                .description("Time a tenant kept a connection before returning it")
+                .tag("tenant", t)
+                .register(meterRegistry));
+    }
+
+    private Timer switchTimer(String tenant) {
+        return switchTimers.computeIfAbsent(tenant, t -> Timer.builder("tenant.connection.schema_switch")
+                .description("Time to move a pooled connection's search_path to the tenant schema")
+                .tag("tenant", t)
+                .register(meterRegistry));
+    }
+
+    @Override
+    public boolean supportsAggressiveRelease() {
+        return false;
+    }
+
+    @Override
+    public boolean isUnwrappableAs(Class<?> unwrapType) {
+        return unwrapType.isInstance(this) || unwrapType.isAssignableFrom(DataSource.class);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T unwrap(Class<T> unwrapType) {
+        if (unwrapType.isInstance(this)) {
+            return (T) this;
+        }
+        if (unwrapType.isAssignableFrom(DataSource.class)) {
+            return (T) shardRouter.main();
+        }
+        throw new IllegalArgumentException("Cannot unwrap to " + unwrapType);
+    }
+}
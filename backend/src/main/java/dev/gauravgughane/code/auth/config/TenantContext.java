@@ -1,16 +1,33 @@
 package dev.gauravgughane.code.auth.config;
 
+import dev.gauravgughane.code.auth.dto.TenantDescriptor;
+
+/**
+ * Tenant of the current request, resolved once by TenantFilter. Holds the registry's
+ * descriptor, so the schema name is read, never recomputed.
+ */
 public class TenantContext {
-    private static final ThreadLocal<String> currentTenant = new ThreadLocal<>();
+    private static final ThreadLocal<TenantDescriptor> currentTenant = new ThreadLocal<>();
 
-    public static void setTenantId(String tenantId) {
-        currentTenant.set(tenantId);
+    public static void set(TenantDescriptor tenant) {
+        currentTenant.set(tenant);
     }
 
-    public static String getTenantId() {
+    public static TenantDescriptor get() {
         return currentTenant.get();
     }
 
+    public static String getTenantId() {
+        TenantDescriptor tenant = currentTenant.get();
+        return tenant != null ? tenant.tenantId() : null;
+    }
+
+    // Schema queries run against; public when there is no tenant or it is not active
+    public static String getSchema() {
+        TenantDescriptor tenant = currentTenant.get();
+        return tenant != null && tenant.isActive() ? tenant.schemaName() : TenantSchema.DEFAULT_SCHEMA;
+    }
+
     public static void clear() {
         currentTenant.remove();
     }
@@ -1,36 +1,89 @@
-
 package dev.gauravgughane.code.auth.config;
 
+import dev.gauravgughane.code.auth.dto.TenantDescriptor;
+import dev.gauravgughane.code.auth.dto.TokenClaims;
+import dev.gauravgughane.code.auth.service.TenantRegistry;
 import jakarta.servlet.*;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
 
+/**
+ * The one place a request's tenant is decided. Runs in the security chain right after
+ * JwtAuthenticationFilter:
+ *  - a verified token's tenant claim wins; a header naming a different tenant is refused (403)
+ *  - otherwise X-Project-ID, then X-Tenant-ID
+ *  - otherwise the public tenant
+ * The registry's descriptor is stored in TenantContext for the rest of the request.
+ */
 @Component
-@Order(1)
 public class TenantFilter implements Filter {
 
     private static final Logger log = LoggerFactory.getLogger(TenantFilter.class);
 
+    // Schema of the resolved tenant, read after the chain for metric and trace tags
+    public static final String TENANT_ATTRIBUTE = TenantFilter.class.getName() + ".schema";
+
+    private final TenantRegistry tenantRegistry;
+
+    public TenantFilter(TenantRegistry tenantRegistry) {
+        this.tenantRegistry = tenantRegistry;
+    }
+
     @Override
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
             throws IOException, ServletException {
 
         HttpServletRequest httpRequest = (HttpServletRequest) request;
-        String tenantId = httpRequest.getHeader("X-Project-ID");
-        if (tenantId == null || tenantId.isBlank()) {
-            tenantId = httpRequest.getHeader("X-Tenant-ID");
+        String header = httpRequest.getHeader("X-Project-ID");
+        if (header == null || header.isBlank()) {
+            header = httpRequest.getHeader("X-Tenant-ID");
+        }
+        if (header != null && header.isBlank()) {
+            header = null;
+        }
+
+        TenantDescriptor descriptor;
+        if (httpRequest.getAttribute(JwtAuthenticationFilter.CLAIMS_ATTRIBUTE) instanceof TokenClaims claims) {
+            String claimed = claims.tenantId() != null ? claims.tenantId() : TenantSchema.DEFAULT_SCHEMA;
+            descriptor = tenantRegistry.find(claimed);
+            if (header != null && descriptor != null && tenantRegistry.find(header) != descriptor) {
+                reject((HttpServletResponse) response, HttpServletResponse.SC_FORBIDDEN,
+                        "Token was issued for a different tenant");
+                return;
+            }
+        } else {
+            String tenantId = header != null ? header : TenantSchema.DEFAULT_SCHEMA;
+            descriptor = tenantRegistry.find(tenantId);
+            if (descriptor == null && isRegistration(httpRequest)) {
+                // Registering the first user of a project provisions its tenant
+                String normalized = TenantSchema.normalizeTenantId(tenantId);
+                if (!TenantSchema.isValidTenantId(normalized)) {
+                    reject((HttpServletResponse) response, HttpServletResponse.SC_BAD_REQUEST, "Invalid tenant id");
+                    return;
+                }
+                descriptor = TenantDescriptor.unprovisioned(normalized);
+            }
+        }
+
+        // Registry lookup is in-memory; unknown or suspended tenants are turned away here
+        if (descriptor == null) {
+            reject((HttpServletResponse) response, HttpServletResponse.SC_NOT_FOUND, "Unknown tenant");
+            return;
         }
-        if (tenantId == null || tenantId.isBlank()) {
-            tenantId = "public";
+        if (descriptor.isProvisioned() && !descriptor.isActive()) {
+            reject((HttpServletResponse) response, HttpServletResponse.SC_FORBIDDEN,
+                    "Tenant is " + descriptor.status().name().toLowerCase());
+            return;
         }
 
-        log.debug("Setting tenant context to: {}", tenantId);
-        TenantContext.setTenantId(tenantId);
+        log.debug("Setting tenant context to: {}", descriptor.tenantId());
+        httpRequest.setAttribute(TENANT_ATTRIBUTE, descriptor.schemaName());
+        TenantContext.set(descriptor);
 
         try {
             chain.doFilter(request, response);
@@ -38,4 +91,14 @@ public class TenantFilter implements Filter {
             TenantContext.clear();
         }
     }
-}
\ No newline at end of file
+
+    private boolean isRegistration(HttpServletRequest request) {
+        return "POST".equals(request.getMethod()) && "/api/auth/register".equals(request.getServletPath());
+    }
+
+    private void reject(HttpServletResponse response, int status, String message) throws IOException {
+        response.setStatus(status);
+        response.setContentType("application/json");
+        response.getWriter().write("{\"error\":\"" + message + "\"}");
+    }
+}
@@ -0,0 +1,58 @@
+package dev.gauravgughane.code.auth.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+// auth.tenant.pool.* - per-tenant shares of the shared connection pool, keyed by schema name
+@Component
+@ConfigurationProperties(prefix = "auth.tenant.pool")
+public class TenantPoolProperties {
+
+    // Permits handed out per connection pool (each shard primary and replica); 0 means that pool's maximum size
+    private int capacity = 0;
+    private int defaultLimit = 8;
+    private int defaultWeight = 1;
+    private Duration acquireTimeout = Duration.ofSeconds(5);
+
+    private Map<String, Integer> limits = new HashMap<>();
+    private Map<String, Integer> weights = new HashMap<>();
+    private Map<String, Duration> acquireTimeouts = new HashMap<>();
+
+    public int limitFor(String schema) {
+        return limits.getOrDefault(schema, defaultLimit);
+    }
+
+    public int weightFor(String schema) {
+        return Math.max(1, weights.getOrDefault(schema, defaultWeight));
+    }
+
+    public Duration acquireTimeoutFor(String schema) {
+        return acquireTimeouts.getOrDefault(schema, acquireTimeout);
+    }
+
+    // Getters & Setters
+    public int getCapacity() { return capacity; }
+    public void setCapacity(int capacity) { this.capacity = capacity; }
+
+    public int getDefaultLimit() { return defaultLimit; }
+    public void setDefaultLimit(int defaultLimit) { this.defaultLimit = defaultLimit; }
+
+    public int getDefaultWeight() { return defaultWeight; }
+    public void setDefaultWeight(int defaultWeight) { this.defaultWeight = defaultWeight; }
+
+    public Duration getAcquireTimeout() { return acquireTimeout; }
+    public void setAcquireTimeout(Duration acquireTimeout) { this.acquireTimeout = acquireTimeout; }
+
+    public Map<String, Integer> getLimits() { return limits; }
+    public void setLimits(Map<String, Integer> limits) { this.limits = limits; }
+
+    public Map<String, Integer> getWeights() { return weights; }
+    public void setWeights(Map<String, Integer> weights) { this.weights = weights; }
+
+    public Map<String, Duration> getAcquireTimeouts() { return acquireTimeouts; }
+    public void setAcquireTimeouts(Map<String, Duration> acquireTimeouts) { this.acquireTimeouts = acquireTimeouts; }
+}
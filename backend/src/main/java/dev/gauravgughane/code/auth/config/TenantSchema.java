@@ -0,0 +1,51 @@
+package dev.gauravgughane.code.auth.config;
+
+import java.util.regex.Pattern;
+
+// Validation and quoting for schema names that end up in SQL
+public final class TenantSchema {
+
+    public static final String DEFAULT_SCHEMA = "public";
+    public static final String TENANT_PREFIX = "tenant_";
+
+    // Lower-case identifiers only; hyphens are allowed because tenant ids like "tenant-a" are quoted
+    private static final Pattern VALID_SCHEMA = Pattern.compile("^[a-z_][a-z0-9_\\-]{0,62}$");
+
+    // public.tenants.tenant_id is VARCHAR(50); the prefixed schema name stays under 63 chars
+    private static final Pattern VALID_TENANT_ID = Pattern.compile("^[a-z0-9][a-z0-9_\\-]{0,49}$");
+
+    private TenantSchema() {}
+
+    // Lower-cases and strips the schema prefix, so "ACME" and "tenant_acme" both give "acme"
+    public static String normalizeTenantId(String tenantId) {
+        String normalized = tenantId.trim().toLowerCase();
+        if (normalized.startsWith(TENANT_PREFIX)) {
+            normalized = normalized.substring(TENANT_PREFIX.length());
+        }
+        return normalized;
+    }
+
+    public static boolean isValidTenantId(String tenantId) {
+        return tenantId != null && VALID_TENANT_ID.matcher(tenantId).matches();
+    }
+
+    public static String schemaFor(String tenantId) {
+        return DEFAULT_SCHEMA.equals(tenantId) ? DEFAULT_SCHEMA : TENANT_PREFIX + tenantId;
+    }
+
+    public static boolean isValid(String schemaName) {
+        return schemaName != null && VALID_SCHEMA.matcher(schemaName).matches();
+    }
+
+    public static String requireValid(String schemaName) {
+        if (!isValid(schemaName)) {
+            throw new IllegalArgumentException("Invalid tenant schema name: " + schemaName);
+        }
+        return schemaName;
+    }
+
+    // Double-quoted identifier, safe to concatenate after validation
+    public static String quote(String schemaName) {
+        return "\"" + requireValid(schemaName) + "\"";
+    }
+}
@@ -1,15 +1,34 @@
 package dev.gauravgughane.code.auth.controller;
 
-import dev.gauravgughane.code.auth.entity.BaseUser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.gauravgughane.code.auth.config.JwtAuthenticationFilter;
+import dev.gauravgughane.code.auth.config.TenantContext;
+import dev.gauravgughane.code.auth.dto.TokenClaims;
+import dev.gauravgughane.code.auth.service.AuditService;
+import dev.gauravgughane.code.auth.service.TokenRevocationService;
+import dev.gauravgughane.code.auth.service.UserImportService;
 import dev.gauravgughane.code.auth.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.List;
-import java.util.stream.Collectors;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/admin")
@@ -18,22 +37,87 @@ public class AdminController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private AuditService auditService;
+
+    @Autowired
+    private UserImportService userImportService;
+
+    @Autowired
+    private TokenRevocationService revocationService;
+
     @GetMapping("/users")
-    public ResponseEntity<?> getAllUsers() {
-        try {
-            List<BaseUser> users = userService.findAllUsers();
-
-            List<Object> safeUsers = users.stream().map(user -> {
-                return new Object() {
-                    public final String id = user.getId().toString();
-                    public final String name = user.getName();
-                    public final String email = user.getEmail();
-                };
-            }).collect(Collectors.toList());
-
-            return ResponseEntity.ok(safeUsers);
-        } catch (Exception e) {
-            return ResponseEntity.internalServerError().body("Error fetching users: " + e.getMessage());
+    public ResponseEntity<?> getAllUsers(@RequestParam(required = false) String cursor,
+                                         @RequestParam(defaultValue = "50") int size) {
+        auditService.recordAsCurrentUser(AuditService.LIST_USERS, "USER", null, Map.of("mode", "page", "size", size));
+        return UserListingSupport.page(userService, cursor, size);
+    }
+
+    @DeleteMapping("/users/{id}")
+    public ResponseEntity<?> deleteUser(@PathVariable UUID id) throws SQLException {
+        if (!userService.deleteUser(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        revocationService.revokeSubject(TenantContext.getTenantId(), id.toString());
+        auditService.recordAsCurrentUser(AuditService.DELETE_USER, "USER", id, null);
+        return ResponseEntity.noContent().build();
+    }
+
+    // Every access token the user holds stops working; their sessions can still refresh
+    @PostMapping("/users/{id}/revoke-tokens")
+    public ResponseEntity<?> revokeUserTokens(@PathVariable UUID id) throws SQLException {
+        Instant notBefore = revocationService.revokeSubject(TenantContext.getTenantId(), id.toString());
+        auditService.recordAsCurrentUser(AuditService.REVOKE_TOKENS, "USER", id, Map.of("scope", "subject"));
+        return ResponseEntity.ok(Map.of("revokedBefore", notBefore.toString()));
+    }
+
+    // Accept: application/x-ndjson streams the whole tenant instead of paging
+    @GetMapping(value = "/users", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void streamAllUsers(HttpServletResponse response) throws IOException {
+        auditService.recordAsCurrentUser(AuditService.LIST_USERS, "USER", null, Map.of("mode", "stream"));
+        UserListingSupport.stream(userService, objectMapper, response);
+    }
+
+    /**
+     * Bulk import into the current tenant. Body is CSV (text/csv) or NDJSON; the response
+     * is NDJSON with error lines as rows are rejected, a progress line per chunk and a
+     * final summary line. Rows cannot grant a role above the caller's.
+     */
+    @PostMapping(value = "/users/import", consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void importUsers(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        UserImportService.Format format = MediaType.APPLICATION_NDJSON.isCompatibleWith(MediaType.parseMediaType(request.getContentType()))
+                ? UserImportService.Format.NDJSON : UserImportService.Format.CSV;
+
+        TokenClaims claims = (TokenClaims) request.getAttribute(JwtAuthenticationFilter.CLAIMS_ATTRIBUTE);
+
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        OutputStream out = response.getOutputStream();
+        Map<String, Object> summary;
+        try (BufferedReader reader = request.getReader()) {
+            summary = userImportService.importUsers(reader, format, claims.role(), record -> {
+                try {
+                    out.write(objectMapper.writeValueAsBytes(record));
+                    out.write('\n');
+                    if (!"error".equals(record.get("type"))) {
+                        out.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } catch (IllegalArgumentException e) {
+            // No tenant to import into; raised before any line is read or written
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(out, Map.of("message", e.getMessage()));
+            return;
         }
+        auditService.recordAsCurrentUser(AuditService.IMPORT_USERS, "USER", null, summary);
     }
-}
\ No newline at end of file
+}
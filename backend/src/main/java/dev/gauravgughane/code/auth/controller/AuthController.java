@@ -1,16 +1,31 @@
 package dev.gauravgughane.code.auth.controller;
 
+import dev.gauravgughane.code.auth.config.TenantContext;
+import dev.gauravgughane.code.auth.config.TenantSchema;
 import dev.gauravgughane.code.auth.dto.AuthRequest;
+import dev.gauravgughane.code.auth.dto.LoginUser;
+import dev.gauravgughane.code.auth.dto.RefreshRequest;
+import dev.gauravgughane.code.auth.dto.TokenClaims;
 import dev.gauravgughane.code.auth.entity.BaseUser;
+import dev.gauravgughane.code.auth.exception.ServiceBusyException;
+import dev.gauravgughane.code.auth.service.AuditService;
 import dev.gauravgughane.code.auth.service.JwtService;
+import dev.gauravgughane.code.auth.service.LoginRateLimiter;
+import dev.gauravgughane.code.auth.service.SessionService;
+import dev.gauravgughane.code.auth.service.TokenRevocationService;
+import dev.gauravgughane.code.auth.service.UserLookupCache;
 import dev.gauravgughane.code.auth.service.UserService;
+import io.jsonwebtoken.JwtException;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.sql.SQLException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -22,6 +37,18 @@ public class AuthController {
     @Autowired
     private JwtService jwtService;
 
+    @Autowired
+    private LoginRateLimiter loginRateLimiter;
+
+    @Autowired
+    private AuditService auditService;
+
+    @Autowired
+    private SessionService sessionService;
+
+    @Autowired
+    private TokenRevocationService revocationService;
+
     @PostMapping("/register")
     public ResponseEntity<?> register(@RequestBody AuthRequest request) {
         try {
@@ -30,12 +57,16 @@ public class AuthController {
                     request.getEmail(),
                     request.getPassword()
             );
+            auditService.record(AuditService.REGISTER, "USER", user.getId(), user.getId(),
+                    Map.of("email", user.getEmail()));
             Map<String, Object> response = new HashMap<>();
             response.put("id", user.getId());
             response.put("name", user.getName());
             response.put("email", user.getEmail());
             response.put("message", "User registered successfully");
             return ResponseEntity.ok(response);
+        } catch (ServiceBusyException e) {
+            throw e; // 503 + Retry-After from ApiExceptionHandler
         } catch (Exception e) {
             Map<String, String> error = new HashMap<>();
             error.put("message", "Registration failed: " + e.getMessage());
@@ -44,27 +75,118 @@ public class AuthController {
     }
 
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody AuthRequest request) {
-        Optional<BaseUser> userOpt = userService.findByEmail(request.getEmail());
+    public ResponseEntity<?> login(@RequestBody AuthRequest request, HttpServletRequest httpRequest) throws SQLException {
+        // Nothing to look up or audit without both; same answer as a wrong password
+        if (request.getEmail() == null || request.getEmail().isBlank() || request.getPassword() == null) {
+            return invalidCredentials();
+        }
+
+        // Throttle before the user lookup or BCrypt get a chance to run
+        String tenant = TenantContext.getTenantId();
+        loginRateLimiter.check(tenant, UserLookupCache.normalizeEmail(request.getEmail()), httpRequest.getRemoteAddr());
+
+        Optional<LoginUser> userOpt = userService.findLoginUser(request.getEmail());
         if (userOpt.isPresent()) {
-            BaseUser user = userOpt.get();
+            LoginUser user = userOpt.get();
             if (userService.checkPassword(user, request.getPassword())) {
-                String tenantId = "public";
-                String token = jwtService.generateToken(user.getId().toString(), tenantId);
+                // Token carries the tenant the user authenticated against
+                String token = jwtService.generateToken(user.id().toString(), TenantContext.getTenantId(), user.role());
+                String refreshToken = sessionService.open(user.id(), httpRequest.getRemoteAddr(),
+                        httpRequest.getHeader("User-Agent"));
+                userService.recordLogin(user);
+                auditService.record(AuditService.LOGIN_SUCCESS, "USER", user.id(), user.id(), null);
 
-                Map<String, Object> response = new HashMap<>();
-                response.put("token", token);
-                response.put("expiresIn", 3600);
+                Map<String, Object> response = tokenResponse(token, refreshToken);
                 response.put("user", Map.of(
-                        "id", user.getId(),
-                        "name", user.getName(),
-                        "email", user.getEmail()
+                        "id", user.id(),
+                        "name", user.name(),
+                        "email", user.email()
                 ));
                 return ResponseEntity.ok(response);
             }
         }
+        // Unknown emails are recorded too, without a user reference
+        auditService.record(AuditService.LOGIN_FAILURE, "USER", userOpt.map(LoginUser::id).orElse(null),
+                userOpt.map(LoginUser::id).orElse(null), Map.of("email", UserLookupCache.normalizeEmail(request.getEmail())));
+        return invalidCredentials();
+    }
+
+    // Trades a refresh token for a new access token and a new refresh token; no password check
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@RequestBody RefreshRequest request) throws SQLException {
+        SessionService.Refreshed refreshed = sessionService.refresh(request.getRefreshToken());
+        if (refreshed == null) {
+            return invalidRefreshToken();
+        }
+        String token = jwtService.generateToken(refreshed.userId().toString(), TenantContext.getTenantId(), refreshed.role());
+        return ResponseEntity.ok(tokenResponse(token, refreshed.refreshToken()));
+    }
+
+    // Ends the session of the refresh token; the access token sent along is revoked with it
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestBody RefreshRequest request, HttpServletRequest httpRequest) throws SQLException {
+        UUID userId = sessionService.close(request.getRefreshToken());
+        if (userId == null) {
+            return invalidRefreshToken();
+        }
+        revokeAccessToken(httpRequest, userId);
+        auditService.record(AuditService.LOGOUT, "USER", userId, userId, null);
+        return ResponseEntity.ok(Map.of("message", "Logged out"));
+    }
+
+    // Ends every session of the refresh token's user, on all devices, and revokes their access tokens
+    @PostMapping("/logout-all")
+    public ResponseEntity<?> logoutAll(@RequestBody RefreshRequest request) throws SQLException {
+        UUID userId = sessionService.close(request.getRefreshToken());
+        if (userId == null) {
+            return invalidRefreshToken();
+        }
+        int closed = 1 + sessionService.closeAll(userId);
+        revocationService.revokeSubject(TenantContext.getTenantId(), userId.toString());
+        auditService.record(AuditService.LOGOUT_ALL, "USER", userId, userId, Map.of("sessions", closed));
+        return ResponseEntity.ok(Map.of("message", "Logged out of all sessions", "sessions", closed));
+    }
+
+    // /api/auth/** bypasses JwtAuthenticationFilter, so the bearer token is read here. Only a
+    // token of the session's own user and tenant is revoked; anyone else's is ignored
+    private void revokeAccessToken(HttpServletRequest httpRequest, UUID userId) throws SQLException {
+        String authHeader = httpRequest.getHeader("Authorization");
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return;
+        }
+        try {
+            TokenClaims claims = jwtService.verify(authHeader.substring(7));
+            if (userId.toString().equals(claims.subject()) && sameTenant(claims.tenantId(), TenantContext.getTenantId())) {
+                revocationService.revokeToken(claims);
+            }
+        } catch (JwtException e) {
+            // Already unusable
+        }
+    }
+
+    private static boolean sameTenant(String tokenTenant, String requestTenant) {
+        return tokenTenant != null && requestTenant != null
+                && TenantSchema.normalizeTenantId(tokenTenant).equals(TenantSchema.normalizeTenantId(requestTenant));
+    }
+
+    private Map<String, Object> tokenResponse(String token, String refreshToken) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("token", token);
+        response.put("expiresIn", jwtService.accessTokenTtl().toSeconds());
+        response.put("refreshToken", refreshToken);
+        response.put("refreshExpiresIn", sessionService.refreshTokenTtl().toSeconds());
+        return response;
+    }
+
+    private static ResponseEntity<Map<String, String>> invalidCredentials() {
         Map<String, String> error = new HashMap<>();
         error.put("message", "Invalid email or password");
         return ResponseEntity.status(401).body(error);
     }
-}
\ No newline at end of file
+
+    private static ResponseEntity<Map<String, String>> invalidRefreshToken() {
+        Map<String, String> error = new HashMap<>();
+        error.put("message", "Invalid or expired refresh token");
+        return ResponseEntity.status(401).body(error);
+    }
+}
@@ -0,0 +1,91 @@
+package dev.gauravgughane.code.auth.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.gauravgughane.code.auth.service.AuditService;
+import dev.gauravgughane.code.auth.service.TenantExportService;
+import dev.gauravgughane.code.auth.service.TenantExportService.Dataset;
+import dev.gauravgughane.code.auth.service.TenantExportService.Format;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+@RestController
+@RequestMapping("/api/admin/export")
+public class ExportController {
+
+    // Large enough that gzip and the socket see few, big writes
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private TenantExportService exportService;
+
+    @Autowired
+    private AuditService auditService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // GET /api/admin/export/users?format=ndjson|csv -> gzip file download
+    @GetMapping("/{dataset}")
+    public void export(@PathVariable String dataset,
+                       @RequestParam(defaultValue = "ndjson") String format,
+                       HttpServletResponse response) throws IOException, SQLException {
+        Dataset ds;
+        Format fmt;
+        try {
+            ds = Dataset.valueOf(dataset.toUpperCase(Locale.ROOT));
+            fmt = Format.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            badRequest(response, "Unknown dataset or format; datasets: users, sessions, audit_logs; formats: ndjson, csv");
+            return;
+        }
+        String schema;
+        try {
+            schema = exportService.currentSchema();
+        } catch (IllegalArgumentException e) {
+            badRequest(response, e.getMessage());
+            return;
+        }
+
+        // Limits are checked before any header is written, so a 503 is still possible
+        try (TenantExportService.Permit permit = exportService.acquire(schema)) {
+            String fileName = schema + "-" + ds.fileName() + "." + fmt.name().toLowerCase(Locale.ROOT) + ".gz";
+            response.setContentType("application/gzip");
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"");
+
+            // Audited whatever happens once data starts flowing: a client that disconnects
+            // mid-COPY may still have received part of the tenant
+            Map<String, Object> details = new LinkedHashMap<>();
+            details.put("format", fmt.name());
+            try (GZIPOutputStream gzip = new GZIPOutputStream(response.getOutputStream(), BUFFER_SIZE)) {
+                details.put("rows", exportService.export(schema, ds, fmt, gzip));
+                details.put("status", "complete");
+            } catch (IOException | SQLException | RuntimeException e) {
+                details.put("status", "failed");
+                details.put("error", e.getClass().getSimpleName());
+                throw e;
+            } finally {
+                auditService.recordAsCurrentUser("EXPORT_" + ds.name(), "TENANT", null, details);
+            }
+        }
+    }
+
+    private void badRequest(HttpServletResponse response, String message) throws IOException {
+        response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), Map.of("message", message));
+    }
+}
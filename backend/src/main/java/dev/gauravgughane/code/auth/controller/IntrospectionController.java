@@ -0,0 +1,51 @@
+package dev.gauravgughane.code.auth.controller;
+
+import dev.gauravgughane.code.auth.dto.IntrospectionRequest;
+import dev.gauravgughane.code.auth.service.TokenIntrospectionService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+// Batch token checks for downstream services; invalid and expired tokens come back as active=false
+@RestController
+@RequestMapping("/api/auth")
+public class IntrospectionController {
+
+    @Autowired
+    private TokenIntrospectionService introspectionService;
+
+    // POST /api/auth/introspect {"tokens": ["...", ...]} -> {"results": [{active, sub, tenantId, role, ttl}, ...]}
+    @PostMapping(value = "/introspect", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> introspect(@RequestBody IntrospectionRequest request) {
+        List<String> tokens = request.getTokens() != null ? request.getTokens() : List.of();
+        try {
+            return ResponseEntity.ok(Map.of("results", introspectionService.introspect(tokens)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    // Length-prefixed variant for service-to-service calls; format in TokenIntrospectionService
+    @PostMapping(value = "/introspect",
+            consumes = TokenIntrospectionService.BINARY_MEDIA_TYPE,
+            produces = {TokenIntrospectionService.BINARY_MEDIA_TYPE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<?> introspectBinary(@RequestBody byte[] body) {
+        try {
+            List<String> tokens = introspectionService.decodeTokens(body);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType(TokenIntrospectionService.BINARY_MEDIA_TYPE))
+                    .body(introspectionService.encode(introspectionService.introspect(tokens)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(Map.of("message", e.getMessage()));
+        }
+    }
+}
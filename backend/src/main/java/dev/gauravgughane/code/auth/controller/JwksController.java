@@ -0,0 +1,40 @@
+package dev.gauravgughane.code.auth.controller;
+
+import dev.gauravgughane.code.auth.service.KeyRing;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+
+// Public keys for services that verify our tokens themselves
+@RestController
+public class JwksController {
+
+    @Autowired
+    private KeyRing keyRing;
+
+    // Shorter than auth.jwt.keys.publish-ahead, so verifiers refetch before a new key signs
+    @Value("${auth.jwt.keys.jwks-max-age:5m}")
+    private Duration maxAge;
+
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<String> jwks(@RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        String etag = keyRing.jwksEtag();
+        CacheControl cacheControl = CacheControl.maxAge(maxAge).cachePublic();
+        if (etag.equals(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(cacheControl)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(keyRing.jwks());
+    }
+}
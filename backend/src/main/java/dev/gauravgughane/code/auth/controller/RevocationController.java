@@ -0,0 +1,73 @@
+package dev.gauravgughane.code.auth.controller;
+
+import dev.gauravgughane.code.auth.config.TenantSchema;
+import dev.gauravgughane.code.auth.dto.RevokeTokenRequest;
+import dev.gauravgughane.code.auth.dto.TokenClaims;
+import dev.gauravgughane.code.auth.service.JwtService;
+import dev.gauravgughane.code.auth.service.TokenDenylist;
+import dev.gauravgughane.code.auth.service.TokenRevocationService;
+import io.jsonwebtoken.JwtException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.Map;
+
+// Revocation of single tokens and of whole tenants; operator endpoints (ROLE_OPERATOR, see SecurityConfig)
+@RestController
+@RequestMapping("/api/admin/revocations")
+public class RevocationController {
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private TokenRevocationService revocationService;
+
+    @Autowired
+    private TokenDenylist denylist;
+
+    @GetMapping
+    public ResponseEntity<?> stats() {
+        return ResponseEntity.ok(Map.of(
+                "revokedTokens", denylist.revokedTokens(),
+                "watermarks", denylist.watermarks(),
+                "filterBytes", denylist.filterBytes()));
+    }
+
+    // POST /api/admin/revocations/tokens {"token": "..."}
+    @PostMapping("/tokens")
+    public ResponseEntity<?> revokeToken(@RequestBody RevokeTokenRequest body) throws SQLException {
+        if (body.getToken() == null) {
+            return ResponseEntity.badRequest().body(Map.of("message", "token is required"));
+        }
+        TokenClaims claims;
+        try {
+            claims = jwtService.verify(body.getToken());
+        } catch (JwtException | IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", "Token is invalid, expired or already revoked"));
+        }
+        if (!revocationService.revokeToken(claims)) {
+            return ResponseEntity.badRequest().body(Map.of("message", "Token has no id; revoke its user instead"));
+        }
+        return ResponseEntity.ok(Map.of("revoked", claims.tokenId().toString(), "expiresAt", claims.expiresAt().toString()));
+    }
+
+    // Every token issued to the tenant so far, users and admins alike
+    @PostMapping("/tenants/{tenantId}")
+    public ResponseEntity<?> revokeTenant(@PathVariable String tenantId) throws SQLException {
+        String normalized = TenantSchema.normalizeTenantId(tenantId);
+        if (!TenantSchema.isValidTenantId(normalized)) {
+            return ResponseEntity.badRequest().body(Map.of("message", "Invalid tenant id"));
+        }
+        Instant notBefore = revocationService.revokeTenant(normalized);
+        return ResponseEntity.ok(Map.of("tenant", normalized, "revokedBefore", notBefore.toString()));
+    }
+}
@@ -0,0 +1,74 @@
+package dev.gauravgughane.code.auth.controller;
+
+import dev.gauravgughane.code.auth.config.ShardProperties;
+import dev.gauravgughane.code.auth.config.ShardRouter;
+import dev.gauravgughane.code.auth.service.TenantRegistry;
+import dev.gauravgughane.code.auth.service.TenantShardMover;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Shard map and tenant moves; operator endpoints (ROLE_OPERATOR, see SecurityConfig)
+@RestController
+@RequestMapping("/api/admin/shards")
+public class ShardController {
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private ShardProperties shardProperties;
+
+    @Autowired
+    private TenantRegistry tenantRegistry;
+
+    @Autowired
+    private TenantShardMover shardMover;
+
+    @GetMapping
+    public ResponseEntity<?> shards() {
+        Map<String, Integer> tenants = tenantRegistry.tenantsPerShard();
+        List<Map<String, Object>> shards = new ArrayList<>();
+        for (String shard : shardRouter.shardIds()) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("shard", shard);
+            entry.put("tenants", tenants.getOrDefault(shard, 0));
+            entry.put("open", !shardProperties.getClosed().contains(shard));
+            shards.add(entry);
+        }
+        return ResponseEntity.ok(Map.of("placement", shardProperties.getPlacement(), "shards", shards));
+    }
+
+    // Runs the whole move in this request; the tenant's writes pause only for the final switch
+    @PostMapping("/{shard}/tenants/{tenantId}")
+    public ResponseEntity<?> move(@PathVariable String shard, @PathVariable String tenantId) throws SQLException {
+        try {
+            TenantShardMover.MoveResult result = shardMover.move(tenantId, shard);
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("tenant", result.tenantId());
+            response.put("from", result.fromShard());
+            response.put("to", result.toShard());
+            response.put("rowsCopied", result.rowsCopied());
+            response.put("catchUpRounds", result.catchUpRounds());
+            response.put("rowsReplayed", result.rowsReplayed());
+            response.put("freezeMs", result.freeze().toMillis());
+            response.put("retiredSchema", result.retiredSchema());
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("message", e.getMessage()));
+        }
+    }
+}
@@ -1,15 +1,17 @@
 package dev.gauravgughane.code.auth.controller; // Correct package for controllers
 
-import dev.gauravgughane.code.auth.entity.BaseUser; // Import the entity
+import com.fasterxml.jackson.databind.ObjectMapper;
 import dev.gauravgughane.code.auth.service.UserService; // Import the service from its correct package
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.List;
-import java.util.stream.Collectors;
+import java.io.IOException;
 
 @RestController
 @RequestMapping("/api/users")
@@ -19,6 +21,9 @@ public class UserController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     // Endpoint to get the profile of the current user (simplified)
     @GetMapping("/profile")
     public ResponseEntity<?> getProfile() {
@@ -26,29 +31,18 @@ public class UserController {
         return ResponseEntity.ok("User profile endpoint - protected by JWT");
     }
 
-    // Endpoint to get all users in the current tenant
+    // Endpoint to get all users in the current tenant, one keyset page at a time
     // This relies on the TenantFilter setting the correct schema context
-    @GetMapping // Maps to GET /api/users
-    public ResponseEntity<?> getAllUsers() {
-        try {
-            List<BaseUser> users = userService.findAll(); // Use UserService method
-
-            // Create a safe list to return (excluding password hashes)
-            List<Object> safeUsers = users.stream().map(user -> {
-                // Return an anonymous object with only safe fields
-                // Using a record-like anonymous class structure
-                return new Object() {
-                    public final String id = user.getId() != null ? user.getId().toString() : null;
-                    public final String name = user.getName();
-                    public final String email = user.getEmail();
-                    // passwordHash is intentionally omitted
-                };
-            }).collect(Collectors.toList());
-
-            return ResponseEntity.ok(safeUsers);
-        } catch (Exception e) {
-            // Basic error handling
-            return ResponseEntity.internalServerError().body("Error fetching users: " + e.getMessage());
-        }
+    @GetMapping // Maps to GET /api/users?cursor=...&size=...
+    public ResponseEntity<?> getAllUsers(@RequestParam(required = false) String cursor,
+                                         @RequestParam(defaultValue = "50") int size) {
+        // UserSummary is a projection, so password hashes are never loaded
+        return UserListingSupport.page(userService, cursor, size);
+    }
+
+    // Same listing as NDJSON, streamed with a database cursor (Accept: application/x-ndjson)
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void streamAllUsers(HttpServletResponse response) throws IOException {
+        UserListingSupport.stream(userService, objectMapper, response);
     }
-}
\ No newline at end of file
+}
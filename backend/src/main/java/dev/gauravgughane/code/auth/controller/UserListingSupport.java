@@ -0,0 +1,56 @@
+package dev.gauravgughane.code.auth.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.gauravgughane.code.auth.dto.UserPage;
+import dev.gauravgughane.code.auth.service.UserService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+// Shared by UserController and AdminController, which expose the same listing
+final class UserListingSupport {
+
+    private static final byte[] NEWLINE = {'\n'};
+    private static final int FLUSH_EVERY = 1000;
+
+    private UserListingSupport() {}
+
+    static ResponseEntity<?> page(UserService userService, String cursor, int size) {
+        try {
+            UserPage page = userService.listUsers(cursor, size);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Error fetching users: " + e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body("Error fetching users: " + e.getMessage());
+        }
+    }
+
+    // One JSON object per line, written while the database cursor advances
+    static void stream(UserService userService, ObjectMapper objectMapper, HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        OutputStream out = response.getOutputStream();
+        int[] written = {0};
+        try {
+            userService.streamUsers(user -> {
+                try {
+                    out.write(objectMapper.writeValueAsBytes(user));
+                    out.write(NEWLINE);
+                    if (++written[0] % FLUSH_EVERY == 0) {
+                        out.flush();
+                    }
+                } catch (IOException e) {
+                    // Client went away; abort the cursor instead of reading the rest of the table
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        out.flush();
+    }
+}
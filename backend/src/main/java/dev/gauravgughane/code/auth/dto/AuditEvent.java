@@ -0,0 +1,18 @@
+package dev.gauravgughane.code.auth.dto;
+
+import java.time.Instant;
+import java.util.UUID;
+
+// One row for <schema>.audit_logs; newValues is already serialized JSON (or null)
+public record AuditEvent(
+        String schema,
+        UUID userId,
+        String action,
+        String resourceType,
+        UUID resourceId,
+        String newValues,
+        String ipAddress,
+        String userAgent,
+        Instant createdAt
+) {
+}
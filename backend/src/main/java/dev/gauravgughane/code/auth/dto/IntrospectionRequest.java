@@ -0,0 +1,10 @@
+package dev.gauravgughane.code.auth.dto;
+
+import java.util.List;
+
+public class IntrospectionRequest {
+    private List<String> tokens;
+
+    public List<String> getTokens() { return tokens; }
+    public void setTokens(List<String> tokens) { this.tokens = tokens; }
+}
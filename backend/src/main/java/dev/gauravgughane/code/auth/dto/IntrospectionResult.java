@@ -0,0 +1,11 @@
+package dev.gauravgughane.code.auth.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import dev.gauravgughane.code.auth.entity.UserRole;
+
+// One entry of a batch introspection; inactive entries carry no claims. ttl is in seconds.
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record IntrospectionResult(boolean active, String sub, String tenantId, UserRole role, Long ttl) {
+
+    public static final IntrospectionResult INACTIVE = new IntrospectionResult(false, null, null, null, null);
+}
@@ -0,0 +1,9 @@
+package dev.gauravgughane.code.auth.dto;
+
+import dev.gauravgughane.code.auth.entity.UserRole;
+
+import java.util.UUID;
+
+// The fields a login needs, cached per tenant by UserLookupCache
+public record LoginUser(UUID id, String name, String email, String passwordHash, UserRole role) {
+}
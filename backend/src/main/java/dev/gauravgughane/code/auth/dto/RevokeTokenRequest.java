@@ -0,0 +1,8 @@
+package dev.gauravgughane.code.auth.dto;
+
+public class RevokeTokenRequest {
+    private String token;
+
+    public String getToken() { return token; }
+    public void setToken(String token) { this.token = token; }
+}
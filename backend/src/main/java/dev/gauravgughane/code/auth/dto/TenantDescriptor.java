@@ -0,0 +1,32 @@
+package dev.gauravgughane.code.auth.dto;
+
+import dev.gauravgughane.code.auth.config.TenantSchema;
+import dev.gauravgughane.code.auth.entity.TenantStatus;
+
+import java.time.Instant;
+
+// Snapshot of a public.tenants row, with the schema name computed once at load time.
+// TenantRegistry holds one instance per tenant; requests share it instead of re-deriving it.
+public record TenantDescriptor(
+        String tenantId,
+        String schemaName,
+        TenantStatus status,
+        Integer connectionLimit,
+        Integer connectionWeight,
+        String shard,
+        Instant updatedAt
+) {
+
+    // A tenant named by a registration request that has no row yet; its queries stay on public
+    public static TenantDescriptor unprovisioned(String tenantId) {
+        return new TenantDescriptor(tenantId, TenantSchema.schemaFor(tenantId), null, null, null, null, null);
+    }
+
+    public boolean isActive() {
+        return status == TenantStatus.ACTIVE;
+    }
+
+    public boolean isProvisioned() {
+        return status != null;
+    }
+}
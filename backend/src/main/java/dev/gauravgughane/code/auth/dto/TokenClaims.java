@@ -0,0 +1,16 @@
+package dev.gauravgughane.code.auth.dto;
+
+import dev.gauravgughane.code.auth.entity.UserRole;
+
+import java.time.Instant;
+import java.util.UUID;
+
+// Verified, immutable view of a JWT - produced once per token by JwtService.verify.
+// tokenId (jti) and issuedAt are null for tokens issued before they were added.
+public record TokenClaims(UUID tokenId, String subject, String tenantId, UserRole role,
+                          Instant issuedAt, Instant expiresAt) {
+
+    public boolean isExpired(Instant now) {
+        return !expiresAt.isAfter(now);
+    }
+}
@@ -0,0 +1,7 @@
+package dev.gauravgughane.code.auth.dto;
+
+import java.util.List;
+
+// One keyset page; nextCursor is null on the last page
+public record UserPage(List<UserSummary> items, String nextCursor) {
+}
@@ -0,0 +1,8 @@
+package dev.gauravgughane.code.auth.dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Listing projection - selected column by column, so password_hash is never read
+public record UserSummary(UUID id, String name, String email, LocalDateTime createdAt) {
+}
@@ -1,6 +1,9 @@
 package dev.gauravgughane.code.auth.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
@@ -17,6 +20,19 @@ public class BaseUser {
     @Column(name = "password_hash") //Field name used in UserService.checkPassword
     private String passwordHash;
 
+    @Enumerated(EnumType.STRING)
+    @Column(name = "role")
+    private UserRole role = UserRole.USER;
+
+    // Keyset pagination orders by (created_at, id)
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    // Written in batches by LastLoginRecorder, never through the entity
+    @Column(name = "last_login", insertable = false, updatable = false)
+    private LocalDateTime lastLogin;
+
     // Constructors
     public BaseUser() {}
 
@@ -38,4 +54,12 @@ public class BaseUser {
 
     public String getPasswordHash() { return passwordHash; } //Used in checkPassword
     public void setPasswordHash(String passwordHash) { this.passwordHash = passwordHash; }
+
+    public UserRole getRole() { return role; }
+    public void setRole(UserRole role) { this.role = role; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getLastLogin() { return lastLogin; }
 }
\ No newline at end of file
@@ -0,0 +1,5 @@
+package dev.gauravgughane.code.auth.entity;
+
+public enum TenantStatus {
+    ACTIVE, INACTIVE, SUSPENDED
+}
@@ -0,0 +1,16 @@
+package dev.gauravgughane.code.auth.exception;
+
+// A caller exceeded its request budget; mapped to 429 + Retry-After
+public class RateLimitedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public RateLimitedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,11 @@
+package dev.gauravgughane.code.auth.exception;
+
+import io.jsonwebtoken.JwtException;
+
+// A validly signed, unexpired token that was revoked; callers treat it like any invalid token
+public class TokenRevokedException extends JwtException {
+
+    public TokenRevokedException(String message) {
+        super(message);
+    }
+}
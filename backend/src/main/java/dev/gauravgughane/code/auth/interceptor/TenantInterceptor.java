@@ -1,46 +0,0 @@
-package dev.gauravgughane.code.auth.interceptor;
-
-import org.springframework.stereotype.Component;
-import org.springframework.web.servlet.HandlerInterceptor;
-
-import jakarta.servlet.http.HttpServletRequest;
-import jakarta.servlet.http.HttpServletResponse;
-
-@Component
-public class TenantInterceptor implements HandlerInterceptor {
-
-    private static final String TENANT_HEADER = "X-Project-ID";
-    private static final ThreadLocal<String> currentTenant = new ThreadLocal<>();
-
-    @Override
-    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
-        String tenantId = request.getHeader(TENANT_HEADER);
-
-        if (tenantId == null || tenantId.trim().isEmpty()) {
-            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
-            response.getWriter().write("{\"error\":\"Missing X-Project-ID header\"}");
-            response.setContentType("application/json");
-            return false;
-        }
-
-        setCurrentTenant(tenantId);
-        return true;
-    }
-
-    @Override
-    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) throws Exception {
-        clearCurrentTenant();
-    }
-
-    public static void setCurrentTenant(String tenantId) {
-        currentTenant.set(tenantId);
-    }
-
-    public static String getCurrentTenant() {
-        return currentTenant.get();
-    }
-
-    public static void clearCurrentTenant() {
-        currentTenant.remove();
-    }
-}
\ No newline at end of file
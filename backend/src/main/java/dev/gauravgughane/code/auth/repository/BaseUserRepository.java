@@ -1,14 +1,63 @@
 package dev.gauravgughane.code.auth.repository;
 
+import dev.gauravgughane.code.auth.dto.LoginUser;
+import dev.gauravgughane.code.auth.dto.UserSummary;
 import dev.gauravgughane.code.auth.entity.BaseUser;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface BaseUserRepository extends JpaRepository<BaseUser, UUID> {
+    @Transactional(readOnly = true)
     Optional<BaseUser> findByEmail(String email); // This method is used by UserService
-    
-}
\ No newline at end of file
+
+    // Emails match case-insensitively; backed by idx_users_email_upper
+    boolean existsByEmailIgnoreCase(String email);
+
+    // Login path: only the columns a password check and token need, no managed entity.
+    // Read-only transactions may be served by a replica (see ReplicaRouter)
+    @Transactional(readOnly = true)
+    @Query("select new dev.gauravgughane.code.auth.dto.LoginUser(u.id, u.name, u.email, u.passwordHash, u.role) "
+            + "from BaseUser u where upper(u.email) = upper(:email)")
+    Optional<LoginUser> findLoginUser(@Param("email") String email);
+
+    @Modifying
+    @Transactional
+    @Query("update BaseUser u set u.passwordHash = :passwordHash where u.id = :id")
+    int updatePasswordHash(@Param("id") UUID id, @Param("passwordHash") String passwordHash);
+
+    // Keyset pagination on (created_at, id), served by idx_users_created_at_id
+    @Query("select new dev.gauravgughane.code.auth.dto.UserSummary(u.id, u.name, u.email, u.createdAt) "
+            + "from BaseUser u order by u.createdAt, u.id")
+    List<UserSummary> findFirstPage(Limit limit);
+
+    @Query("select new dev.gauravgughane.code.auth.dto.UserSummary(u.id, u.name, u.email, u.createdAt) "
+            + "from BaseUser u where (u.createdAt, u.id) > (:createdAt, :id) order by u.createdAt, u.id")
+    List<UserSummary> findPageAfter(@Param("createdAt") LocalDateTime createdAt, @Param("id") UUID id, Limit limit);
+
+    // Must run inside a transaction; the fetch size turns into a server-side cursor on PostgreSQL
+    @Query("select new dev.gauravgughane.code.auth.dto.UserSummary(u.id, u.name, u.email, u.createdAt) "
+            + "from BaseUser u order by u.createdAt, u.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<UserSummary> streamAll();
+
+    // audit_logs.user_id references users without ON DELETE; keep the history, drop the link
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE audit_logs SET user_id = NULL WHERE user_id = :userId", nativeQuery = true)
+    int detachAuditLogs(@Param("userId") UUID userId);
+}
@@ -0,0 +1,293 @@
+package dev.gauravgughane.code.auth.service;
+
+import dev.gauravgughane.code.auth.config.ShardRouter;
+import dev.gauravgughane.code.auth.config.TenantSchema;
+import dev.gauravgughane.code.auth.dto.AuditEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded in-memory buffer of audit events, drained by one background thread into the
+ * tenant audit_logs tables with multi-row INSERTs.
+ *
+ * Request threads only ever do a queue offer. What happens when the buffer is full is
+ * governed by the overflow policy. On shutdown the buffer is flushed after the web
+ * server has finished draining requests.
+ */
+@Component
+public class AuditLogWriter implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditLogWriter.class);
+
+    // Bind parameters per row in insert(); keep in step with its column list
+    private static final int PARAMS_PER_ROW = 8;
+    // PostgreSQL JDBC accepts at most 32767 bind parameters per statement
+    private static final int MAX_ROWS_PER_STATEMENT = 32767 / PARAMS_PER_ROW;
+
+    public enum OverflowPolicy { DROP_NEWEST, DROP_OLDEST, BLOCK }
+
+    private final ShardRouter shardRouter;
+    private final TenantRegistry tenantRegistry;
+    private final BlockingQueue<AuditEvent> buffer;
+    private final OverflowPolicy overflowPolicy;
+    private final Duration blockTimeout;
+    private final int batchSize;
+    private final Duration flushInterval;
+    private final Duration shutdownTimeout;
+
+    private final Counter enqueued;
+    private final Counter droppedOverflow;
+    private final Counter droppedFailed;
+    private final Counter written;
+    private final Timer lag;
+    private final DistributionSummary batchSizes;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public AuditLogWriter(ShardRouter shardRouter,
+                          TenantRegistry tenantRegistry,
+                          @Value("${auth.audit.capacity:10000}") int capacity,
+                          @Value("${auth.audit.overflow-policy:DROP_NEWEST}") OverflowPolicy overflowPolicy,
+                          @Value("${auth.audit.block-timeout:50ms}") Duration blockTimeout,
+                          @Value("${auth.audit.batch-size:500}") int batchSize,
+                          @Value("${auth.audit.flush-interval:200ms}") Duration flushInterval,
+                          @Value("${auth.audit.shutdown-timeout:10s}") Duration shutdownTimeout,
+                          MeterRegistry meterRegistry) {
+        this.shardRouter = shardRouter;
+        this.tenantRegistry = tenantRegistry;
+        this.buffer = new ArrayBlockingQueue<>(capacity);
+        this.overflowPolicy = overflowPolicy;
+        this.blockTimeout = blockTimeout;
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.shutdownTimeout = shutdownTimeout;
+
+        this.enqueued = Counter.builder("auth.audit.enqueued")
+                .description("Audit events accepted into the buffer")
+                .register(meterRegistry);
+        this.droppedOverflow = Counter.builder("auth.audit.dropped")
+                .description("Audit events lost")
+                .tag("reason", "overflow")
+                .register(meterRegistry);
+        this.droppedFailed = Counter.builder("auth.audit.dropped")
+                .description("Audit events lost")
+                .tag("reason", "write_failed")
+                .register(meterRegistry);
+        this.written = Counter.builder("auth.audit.written")
+                .description("Audit events persisted")
+                .register(meterRegistry);
+        this.lag = Timer.builder("auth.audit.lag")
+                .description("Time from event creation to commit")
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("auth.audit.batch.size")
+                .description("Events per flush")
+                .register(meterRegistry);
+        Gauge.builder("auth.audit.buffer.depth", buffer, BlockingQueue::size)
+                .description("Audit events waiting to be written")
+                .register(meterRegistry);
+    }
+
+    // Never blocks longer than block-timeout, and only under the BLOCK policy
+    public void submit(AuditEvent event) {
+        boolean accepted = switch (overflowPolicy) {
+            case DROP_NEWEST -> buffer.offer(event);
+            case DROP_OLDEST -> offerDroppingOldest(event);
+            case BLOCK -> offerWithTimeout(event);
+        };
+        if (accepted) {
+            enqueued.increment();
+        } else {
+            droppedOverflow.increment();
+        }
+    }
+
+    private boolean offerDroppingOldest(AuditEvent event) {
+        while (!buffer.offer(event)) {
+            if (buffer.poll() != null) {
+                droppedOverflow.increment();
+            }
+        }
+        return true;
+    }
+
+    private boolean offerWithTimeout(AuditEvent event) {
+        try {
+            return buffer.offer(event, blockTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void drainLoop() {
+        List<AuditEvent> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                AuditEvent first = buffer.poll(flushInterval.toNanos(), TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                buffer.drainTo(batch, batchSize - 1);
+                flush(batch);
+            } catch (InterruptedException e) {
+                // stop() interrupts to wake us up; the final drain happens there
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<AuditEvent> batch) {
+        batchSizes.record(batch.size());
+
+        // One connection per shard, shared by all schemas on it
+        Map<String, Map<String, List<AuditEvent>>> byShard = new LinkedHashMap<>();
+        for (AuditEvent event : batch) {
+            byShard.computeIfAbsent(tenantRegistry.shardOf(event.schema()), s -> new LinkedHashMap<>())
+                    .computeIfAbsent(event.schema(), s -> new ArrayList<>()).add(event);
+        }
+
+        for (Map.Entry<String, Map<String, List<AuditEvent>>> shard : byShard.entrySet()) {
+            try (Connection conn = shardRouter.dataSource(shard.getKey()).getConnection()) {
+                for (Map.Entry<String, List<AuditEvent>> entry : shard.getValue().entrySet()) {
+                    writeSchema(conn, entry.getKey(), entry.getValue());
+                }
+            } catch (SQLException | RuntimeException e) {
+                int events = shard.getValue().values().stream().mapToInt(List::size).sum();
+                log.error("Failed to write {} audit events to shard {}", events, shard.getKey(), e);
+                droppedFailed.increment(events);
+            }
+        }
+    }
+
+    private void writeSchema(Connection conn, String schema, List<AuditEvent> events) throws SQLException {
+        for (int from = 0; from < events.size(); from += MAX_ROWS_PER_STATEMENT) {
+            List<AuditEvent> chunk = events.subList(from, Math.min(events.size(), from + MAX_ROWS_PER_STATEMENT));
+            try {
+                insert(conn, schema, chunk);
+                recordWritten(chunk);
+            } catch (SQLException e) {
+                // One bad row (e.g. a user deleted since) must not sink the rest
+                log.warn("Audit batch for {} failed, retrying row by row: {}", schema, e.getMessage());
+                for (AuditEvent event : chunk) {
+                    try {
+                        insert(conn, schema, List.of(event));
+                        recordWritten(List.of(event));
+                    } catch (SQLException rowFailure) {
+                        droppedFailed.increment();
+                    }
+                }
+            }
+        }
+    }
+
+    private void insert(Connection conn, String schema, List<AuditEvent> rows) throws SQLException {
+        StringBuilder sql = new StringBuilder("INSERT INTO ")
+                .append(TenantSchema.quote(schema))
+                .append(".audit_logs (user_id, action, resource_type, resource_id, new_values, ip_address, user_agent, created_at) VALUES ");
+        for (int i = 0; i < rows.size(); i++) {
+            sql.append(i == 0 ? "" : ", ").append("(?, ?, ?, ?, ?::jsonb, ?::inet, ?, ?)");
+        }
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+            int p = 1;
+            for (AuditEvent event : rows) {
+                setUuid(stmt, p++, event.userId());
+                stmt.setString(p++, event.action());
+                stmt.setString(p++, event.resourceType());
+                setUuid(stmt, p++, event.resourceId());
+                stmt.setString(p++, event.newValues());
+                stmt.setString(p++, event.ipAddress());
+                stmt.setString(p++, event.userAgent());
+                stmt.setTimestamp(p++, Timestamp.from(event.createdAt()));
+            }
+            stmt.executeUpdate();
+        }
+    }
+
+    private static void setUuid(PreparedStatement stmt, int index, UUID value) throws SQLException {
+        if (value != null) {
+            stmt.setObject(index, value);
+        } else {
+            stmt.setNull(index, Types.OTHER);
+        }
+    }
+
+    private void recordWritten(List<AuditEvent> events) {
+        Instant now = Instant.now();
+        for (AuditEvent event : events) {
+            lag.record(Duration.between(event.createdAt(), now));
+        }
+        written.increment(events.size());
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        worker = new Thread(this::drainLoop, "audit-log-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        worker.interrupt();
+        try {
+            worker.join(shutdownTimeout.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Final flush of whatever is still buffered, bounded by the shutdown timeout
+        long deadline = System.nanoTime() + shutdownTimeout.toNanos();
+        List<AuditEvent> batch = new ArrayList<>(batchSize);
+        while (buffer.drainTo(batch, batchSize) > 0 && System.nanoTime() < deadline) {
+            flush(batch);
+            batch.clear();
+        }
+        if (!buffer.isEmpty()) {
+            log.warn("Shutting down with {} audit events unwritten", buffer.size());
+            droppedFailed.increment(buffer.size());
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Stop after the web server's graceful shutdown (DEFAULT_PHASE - 1024) so late requests are captured
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 2048;
+    }
+}
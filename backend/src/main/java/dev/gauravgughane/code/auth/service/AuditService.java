@@ -0,0 +1,116 @@
+package dev.gauravgughane.code.auth.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.gauravgughane.code.auth.config.TenantContext;
+import dev.gauravgughane.code.auth.config.TenantSchema;
+import dev.gauravgughane.code.auth.dto.AuditEvent;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Records audit events for the current tenant. Everything request-scoped (schema, client
+ * address, user agent) is captured here on the calling thread; the write itself happens
+ * later on the AuditLogWriter thread.
+ */
+@Service
+public class AuditService {
+
+    public static final String LOGIN_SUCCESS = "LOGIN_SUCCESS";
+    public static final String LOGIN_FAILURE = "LOGIN_FAILURE";
+    public static final String REGISTER = "REGISTER";
+    public static final String LIST_USERS = "LIST_USERS";
+    public static final String DELETE_USER = "DELETE_USER";
+    public static final String IMPORT_USERS = "IMPORT_USERS";
+    public static final String LOGOUT = "LOGOUT";
+    public static final String LOGOUT_ALL = "LOGOUT_ALL";
+    public static final String REFRESH_REUSE = "REFRESH_REUSE";
+    public static final String REVOKE_TOKENS = "REVOKE_TOKENS";
+
+    private static final int MAX_USER_AGENT_LENGTH = 512;
+
+    @Autowired
+    private AuditLogWriter auditLogWriter;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${auth.audit.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * Queues an event against the current tenant. userId is the acting user when known;
+     * details end up in new_values. Events for the public schema are skipped, since it
+     * has no audit_logs table.
+     */
+    public void record(String action, String resourceType, UUID userId, UUID resourceId, Map<String, ?> details) {
+        if (!enabled) {
+            return;
+        }
+        String schema = TenantContext.getSchema();
+        if (TenantSchema.DEFAULT_SCHEMA.equals(schema)) {
+            return;
+        }
+
+        HttpServletRequest request = currentRequest();
+        auditLogWriter.submit(new AuditEvent(
+                schema,
+                userId,
+                action,
+                resourceType,
+                resourceId,
+                toJson(details),
+                request != null ? request.getRemoteAddr() : null,
+                request != null ? truncate(request.getHeader("User-Agent")) : null,
+                Instant.now()
+        ));
+    }
+
+    // Same as record(), with the authenticated user as the actor
+    public void recordAsCurrentUser(String action, String resourceType, UUID resourceId, Map<String, ?> details) {
+        record(action, resourceType, currentUserId(), resourceId, details);
+    }
+
+    private String toJson(Map<String, ?> details) {
+        if (details == null || details.isEmpty()) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(details);
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    private static UUID currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof String principal)) {
+            return null;
+        }
+        try {
+            return UUID.fromString(principal);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static HttpServletRequest currentRequest() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes instanceof ServletRequestAttributes servletAttributes ? servletAttributes.getRequest() : null;
+    }
+
+    private static String truncate(String value) {
+        return value != null && value.length() > MAX_USER_AGENT_LENGTH ? value.substring(0, MAX_USER_AGENT_LENGTH) : value;
+    }
+}
@@ -0,0 +1,217 @@
+package dev.gauravgughane.code.auth.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Keeps the key ring in public.signing_keys, shared by every node. Rotation runs under an
+ * advisory lock, so one node adds the next key and the others pick it up on their next
+ * reload. A new key activates publish-ahead after it is created, and a replaced key is
+ * dropped once retain-after-replacement has passed since its successor took over.
+ *
+ * Private keys are sealed with AES-GCM under a key derived from auth.jwt.keys.encryption-secret
+ * (JWT_KEY_ENCRYPTION_SECRET) when one is configured.
+ */
+@Component
+@ConditionalOnProperty(name = "auth.jwt.keys.source", havingValue = "database", matchIfMissing = true)
+public class DatabaseSigningKeySource implements SigningKeySource {
+
+    private static final Logger log = LoggerFactory.getLogger(DatabaseSigningKeySource.class);
+
+    private static final int IV_LENGTH = 12;
+
+    private final DataSource dataSource;
+    private final SigningKey.Algorithm algorithm;
+    private final Duration rotationPeriod;
+    private final Duration publishAhead;
+    private final Duration retainAfterReplacement;
+    private final SecretKeySpec sealingKey;
+    private final SecureRandom random = new SecureRandom();
+
+    public DatabaseSigningKeySource(DataSource dataSource,
+                                    @Value("${auth.jwt.keys.algorithm:ES256}") SigningKey.Algorithm algorithm,
+                                    @Value("${auth.jwt.keys.rotation-period:30d}") Duration rotationPeriod,
+                                    @Value("${auth.jwt.keys.publish-ahead:1h}") Duration publishAhead,
+                                    @Value("${auth.jwt.keys.retain-after-replacement:2h}") Duration retainAfterReplacement,
+                                    @Value("${auth.jwt.keys.encryption-secret:}") String encryptionSecret,
+                                    @Value("${auth.jwt.keys.allow-unencrypted:false}") boolean allowUnencrypted) {
+        this.dataSource = dataSource;
+        this.algorithm = algorithm;
+        this.rotationPeriod = rotationPeriod;
+        this.publishAhead = publishAhead;
+        this.retainAfterReplacement = retainAfterReplacement;
+        if (encryptionSecret == null || encryptionSecret.isBlank()) {
+            // Plaintext private keys in public.signing_keys are only acceptable on a dev machine
+            if (!allowUnencrypted) {
+                throw new IllegalStateException("auth.jwt.keys.encryption-secret (JWT_KEY_ENCRYPTION_SECRET) is not set; "
+                        + "set it, or auth.jwt.keys.allow-unencrypted=true for development only");
+            }
+            log.warn("auth.jwt.keys.encryption-secret is not set; signing keys are stored unencrypted");
+            this.sealingKey = null;
+        } else {
+            this.sealingKey = new SecretKeySpec(sha256(encryptionSecret), "AES");
+        }
+    }
+
+    @Override
+    public List<SigningKey> load() throws SQLException, GeneralSecurityException {
+        List<SigningKey> keys = new ArrayList<>();
+        try (Connection conn = dataSource.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT kid, algorithm, public_key, private_key, encrypted, activates_at "
+                     + "FROM public.signing_keys ORDER BY activates_at")) {
+            while (rs.next()) {
+                SigningKey.Algorithm keyAlgorithm = SigningKey.Algorithm.valueOf(rs.getString("algorithm"));
+                byte[] privateKey = rs.getBytes("private_key");
+                if (rs.getBoolean("encrypted")) {
+                    privateKey = unseal(privateKey);
+                }
+                keys.add(new SigningKey(
+                        rs.getString("kid"),
+                        keyAlgorithm,
+                        keyAlgorithm.decodePublic(rs.getBytes("public_key")),
+                        keyAlgorithm.decodePrivate(privateKey),
+                        rs.getTimestamp("activates_at").toInstant()
+                ));
+            }
+        }
+        return keys;
+    }
+
+    @Override
+    public void rotate(Instant now) throws SQLException, GeneralSecurityException {
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                if (!tryRotationLock(conn)) {
+                    conn.rollback();
+                    return;
+                }
+                Instant newest = newestActivation(conn);
+                if (newest == null) {
+                    // First key: nobody can have cached a JWKS yet, so it signs right away
+                    insert(conn, algorithm.generate(newKid(now), now));
+                    log.info("Created the first JWT signing key");
+                } else if (!newest.plus(rotationPeriod).minus(publishAhead).isAfter(now)) {
+                    SigningKey next = algorithm.generate(newKid(now), now.plus(publishAhead));
+                    insert(conn, next);
+                    log.info("Added JWT signing key {}, active from {}", next.kid(), next.activatesAt());
+                }
+                int dropped = dropReplaced(conn, now);
+                if (dropped > 0) {
+                    log.info("Dropped {} replaced JWT signing keys", dropped);
+                }
+                conn.commit();
+            } catch (SQLException | GeneralSecurityException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    private void insert(Connection conn, SigningKey key) throws SQLException, GeneralSecurityException {
+        byte[] privateKey = key.privateKey().getEncoded();
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "INSERT INTO public.signing_keys (kid, algorithm, public_key, private_key, encrypted, activates_at) "
+                        + "VALUES (?, ?, ?, ?, ?, ?)")) {
+            stmt.setString(1, key.kid());
+            stmt.setString(2, key.algorithm().name());
+            stmt.setBytes(3, key.publicKey().getEncoded());
+            stmt.setBytes(4, sealingKey != null ? seal(privateKey) : privateKey);
+            stmt.setBoolean(5, sealingKey != null);
+            stmt.setTimestamp(6, Timestamp.from(key.activatesAt()));
+            stmt.executeUpdate();
+        } finally {
+            Arrays.fill(privateKey, (byte) 0);
+        }
+    }
+
+    // A key is dead once a newer key has been signing for longer than any token lives
+    private int dropReplaced(Connection conn, Instant now) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "DELETE FROM public.signing_keys k WHERE EXISTS ("
+                        + "SELECT 1 FROM public.signing_keys n WHERE n.activates_at > k.activates_at AND n.activates_at <= ?)")) {
+            stmt.setTimestamp(1, Timestamp.from(now.minus(retainAfterReplacement)));
+            return stmt.executeUpdate();
+        }
+    }
+
+    private static Instant newestActivation(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT max(activates_at) FROM public.signing_keys")) {
+            rs.next();
+            Timestamp newest = rs.getTimestamp(1);
+            return newest != null ? newest.toInstant() : null;
+        }
+    }
+
+    private static boolean tryRotationLock(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT pg_try_advisory_xact_lock(hashtext('signing-keys'))")) {
+            rs.next();
+            return rs.getBoolean(1);
+        }
+    }
+
+    // e.g. 20261017-3f9a0c1b; sortable by creation and unique without coordination
+    private String newKid(Instant now) {
+        byte[] suffix = new byte[4];
+        random.nextBytes(suffix);
+        return now.toString().substring(0, 10).replace("-", "") + "-" + HexFormat.of().formatHex(suffix);
+    }
+
+    // iv || ciphertext+tag
+    private byte[] seal(byte[] plain) throws GeneralSecurityException {
+        byte[] iv = new byte[IV_LENGTH];
+        random.nextBytes(iv);
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, sealingKey, new GCMParameterSpec(128, iv));
+        byte[] sealed = cipher.doFinal(plain);
+        byte[] out = Arrays.copyOf(iv, IV_LENGTH + sealed.length);
+        System.arraycopy(sealed, 0, out, IV_LENGTH, sealed.length);
+        return out;
+    }
+
+    private byte[] unseal(byte[] sealed) throws GeneralSecurityException {
+        if (sealingKey == null) {
+            throw new IllegalStateException("Signing keys are encrypted but auth.jwt.keys.encryption-secret is not set");
+        }
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.DECRYPT_MODE, sealingKey, new GCMParameterSpec(128, sealed, 0, IV_LENGTH));
+        return cipher.doFinal(sealed, IV_LENGTH, sealed.length - IV_LENGTH);
+    }
+
+    private static byte[] sha256(String secret) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(secret.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package dev.gauravgughane.code.auth.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Reads PEM key pairs from a directory (e.g. a mounted secret): &lt;kid&gt;.pub holds the
+ * X.509 public key and &lt;kid&gt;.key the PKCS#8 private key. A .pub without a .key is
+ * only used for verification. Rotation is the operator's job: add a new pair (it signs
+ * publish-ahead after its file time), and delete the old .key, later its .pub.
+ *
+ *   openssl genpkey -algorithm EC -pkeyopt ec_paramgen_curve:P-256 -out 2026-10.key
+ *   openssl pkey -in 2026-10.key -pubout -out 2026-10.pub
+ */
+@Component
+@ConditionalOnProperty(name = "auth.jwt.keys.source", havingValue = "file")
+public class FileSigningKeySource implements SigningKeySource {
+
+    private final Path directory;
+    private final Duration publishAhead;
+
+    public FileSigningKeySource(@Value("${auth.jwt.keys.dir}") Path directory,
+                                @Value("${auth.jwt.keys.publish-ahead:1h}") Duration publishAhead) {
+        this.directory = directory;
+        this.publishAhead = publishAhead;
+    }
+
+    @Override
+    public List<SigningKey> load() throws IOException, GeneralSecurityException {
+        List<SigningKey> keys = new ArrayList<>();
+        try (DirectoryStream<Path> publicKeys = Files.newDirectoryStream(directory, "*.pub")) {
+            for (Path publicFile : publicKeys) {
+                String name = publicFile.getFileName().toString();
+                String kid = name.substring(0, name.length() - ".pub".length());
+                Path privateFile = directory.resolve(kid + ".key");
+
+                byte[] publicDer = readPem(publicFile);
+                SigningKey.Algorithm algorithm = detect(publicDer);
+                PublicKey publicKey = algorithm.decodePublic(publicDer);
+                PrivateKey privateKey = Files.exists(privateFile) ? algorithm.decodePrivate(readPem(privateFile)) : null;
+                Instant added = Files.getLastModifiedTime(privateKey != null ? privateFile : publicFile).toInstant();
+                keys.add(new SigningKey(kid, algorithm, publicKey, privateKey, added.plus(publishAhead)));
+            }
+        }
+        return keys;
+    }
+
+    private static SigningKey.Algorithm detect(byte[] publicDer) throws GeneralSecurityException {
+        for (SigningKey.Algorithm algorithm : SigningKey.Algorithm.values()) {
+            try {
+                algorithm.decodePublic(publicDer);
+                return algorithm;
+            } catch (GeneralSecurityException e) {
+                // try the next one; EC keys on curves other than P-256 fail every algorithm
+            }
+        }
+        throw new GeneralSecurityException("Public key is neither P-256 EC nor Ed25519");
+    }
+
+    private static byte[] readPem(Path file) throws IOException {
+        StringBuilder base64 = new StringBuilder();
+        for (String line : Files.readAllLines(file, StandardCharsets.US_ASCII)) {
+            if (!line.startsWith("-----")) {
+                base64.append(line.trim());
+            }
+        }
+        return Base64.getDecoder().decode(base64.toString());
+    }
+}
@@ -0,0 +1,22 @@
+package dev.gauravgughane.code.auth.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+// Shard chosen from the tenant id alone: every node agrees without looking at load
+@Component
+@ConditionalOnProperty(name = "auth.shards.placement", havingValue = "hash")
+public class HashPlacementPolicy implements ShardPlacementPolicy {
+
+    @Override
+    public String place(String tenantId, Map<String, Integer> tenantsPerShard) {
+        if (tenantsPerShard.isEmpty()) {
+            throw new IllegalStateException("No shard is open for new tenants");
+        }
+        List<String> shards = tenantsPerShard.keySet().stream().sorted().toList();
+        return shards.get(Math.floorMod(tenantId.hashCode(), shards.size()));
+    }
+}
@@ -1,23 +1,100 @@
 package dev.gauravgughane.code.auth.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import dev.gauravgughane.code.auth.config.RequestTrace;
+import dev.gauravgughane.code.auth.config.TenantSchema;
+import dev.gauravgughane.code.auth.dto.TokenClaims;
 import dev.gauravgughane.code.auth.entity.UserRole;
+import dev.gauravgughane.code.auth.exception.TokenRevokedException;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.security.InvalidKeyException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import javax.crypto.SecretKey;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.function.Function;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class JwtService {
 
-    private final SecretKey SECRET_KEY = Keys.secretKeyFor(SignatureAlgorithm.HS256);
-    private final long JWT_EXPIRATION = 1000 * 60 * 60;
+    private final Duration accessTokenTtl;
+
+    private final KeyRing keyRing;
+
+    // Built once - parsers are immutable and thread-safe. The verification key is picked
+    // by the token's kid header; tokens without a known kid fail like forged ones.
+    private final JwtParser parser;
+
+    // Verified claims keyed by SHA-256 of the raw token; entries die with the token
+    private final Cache<ByteBuffer, TokenClaims> verifiedTokens;
+
+    // Checked on every verify, cache hits included
+    private final TokenDenylist denylist;
+
+    private final MeterRegistry meterRegistry;
+    // "result|tenantId" -> timer; tenant ids come from signed tokens, so the set is bounded
+    private final Map<String, Timer> verifyTimers = new ConcurrentHashMap<>();
+
+    public JwtService(@Value("${auth.jwt.cache.max-size:10000}") long cacheMaxSize,
+                      @Value("${auth.jwt.access-token-ttl:15m}") Duration accessTokenTtl,
+                      MeterRegistry meterRegistry,
+                      KeyRing keyRing,
+                      TokenDenylist denylist) {
+        this.accessTokenTtl = accessTokenTtl;
+        this.denylist = denylist;
+        this.meterRegistry = meterRegistry;
+        this.keyRing = keyRing;
+        this.parser = Jwts.parser().keyLocator(new LocatorAdapter<Key>() {
+            @Override
+            protected Key locate(JwsHeader header) {
+                PublicKey key = keyRing.verificationKey(header.getKeyId());
+                if (key == null) {
+                    throw new InvalidKeyException("Unknown signing key id: " + header.getKeyId());
+                }
+                return key;
+            }
+        }).build();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(new Expiry<ByteBuffer, TokenClaims>() {
+                    @Override
+                    public long expireAfterCreate(ByteBuffer key, TokenClaims claims, long currentTime) {
+                        return Math.max(0, Duration.between(Instant.now(), claims.expiresAt()).toNanos());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(ByteBuffer key, TokenClaims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(ByteBuffer key, TokenClaims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
 
     public String generateToken(String userId, String tenantId, UserRole role) {
         Map<String, Object> claims = new HashMap<>();
@@ -26,58 +103,138 @@ public class JwtService {
         return createToken(claims, userId);
     }
 
+    public Duration accessTokenTtl() {
+        return accessTokenTtl;
+    }
+
     public String generateToken(String userId, String tenantId) {
         return generateToken(userId, tenantId, UserRole.USER);
     }
 
     private String createToken(Map<String, Object> claims, String subject) {
+        SigningKey key = keyRing.signingKey();
         return Jwts.builder()
+                .header().keyId(key.kid()).and()
                 .claims(claims)
+                .id(UUID.randomUUID().toString())
                 .subject(subject)
                 .issuedAt(new Date(System.currentTimeMillis()))
-                .expiration(new Date(System.currentTimeMillis() + JWT_EXPIRATION))
-                .signWith(SECRET_KEY)
+                .expiration(new Date(System.currentTimeMillis() + accessTokenTtl.toMillis()))
+                .signWith(key.privateKey(), key.algorithm().signature())
                 .compact();
     }
 
+    /**
+     * Parses and verifies the token at most once; repeat calls with the same token
+     * are answered from the cache until the token expires.
+     * Throws a JwtException if the token is malformed, forged, expired or revoked.
+     */
+    public TokenClaims verify(String token) {
+        long start = System.nanoTime();
+        String result = "invalid";
+        String tenantId = null;
+        try {
+            ByteBuffer key = digest(token);
+            TokenClaims cached = verifiedTokens.getIfPresent(key);
+            Instant now = Instant.now();
+            if (cached != null) {
+                tenantId = cached.tenantId();
+                if (!cached.isExpired(now)) {
+                    requireNotRevoked(cached);
+                    result = "cached";
+                    return cached;
+                }
+                verifiedTokens.invalidate(key);
+                throw new ExpiredJwtException(null, null, "JWT expired at " + cached.expiresAt());
+            }
+
+            TokenClaims claims = toTokenClaims(extractAllClaims(token));
+            verifiedTokens.put(key, claims);
+            tenantId = claims.tenantId();
+            requireNotRevoked(claims);
+            result = "verified";
+            return claims;
+        } catch (TokenRevokedException e) {
+            result = "revoked";
+            throw e;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            verifyTimer(result, tenantId).record(elapsed, TimeUnit.NANOSECONDS);
+            RequestTrace.record("jwt", elapsed);
+        }
+    }
+
+    private void requireNotRevoked(TokenClaims claims) {
+        TokenDenylist.Reason reason = denylist.check(claims);
+        if (reason != null) {
+            throw new TokenRevokedException("JWT revoked (" + reason + ")");
+        }
+    }
+
+    private Timer verifyTimer(String result, String tenantId) {
+        return verifyTimers.computeIfAbsent(result + "|" + tenantId, k -> Timer.builder("auth.jwt.verify")
+                .description("Token parse, signature and revocation check; result=cached skips the first two")
+                .tag("result", result)
+                .tag("tenant", tenantId != null ? TenantSchema.schemaFor(TenantSchema.normalizeTenantId(tenantId)) : "none")
+                .register(meterRegistry));
+    }
+
     public String extractUserId(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return verify(token).subject();
     }
 
     public String extractTenantId(String token) {
-        Claims claims = extractAllClaims(token);
-        return (String) claims.get("tenantId");
+        return verify(token).tenantId();
     }
 
     public UserRole extractRole(String token) {
-        Claims claims = extractAllClaims(token);
-        String roleStr = (String) claims.get("role");
-        return roleStr != null ? UserRole.valueOf(roleStr) : UserRole.USER;
+        return verify(token).role();
     }
 
     public Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+        return Date.from(verify(token).expiresAt());
     }
 
-    public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+    private Claims extractAllClaims(String token) {
+        return parser.parseSignedClaims(token).getPayload();
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(SECRET_KEY)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    private TokenClaims toTokenClaims(Claims claims) {
+        String roleStr = claims.get("role", String.class);
+        Date issuedAt = claims.getIssuedAt();
+        return new TokenClaims(
+                tokenId(claims.getId()),
+                claims.getSubject(),
+                claims.get("tenantId", String.class),
+                roleStr != null ? UserRole.valueOf(roleStr) : UserRole.USER,
+                issuedAt != null ? issuedAt.toInstant() : null,
+                claims.getExpiration().toInstant()
+        );
+    }
+
+    // Ids this service did not issue (absent or not a UUID) cannot be revoked one by one
+    private static UUID tokenId(String jti) {
+        if (jti == null) {
+            return null;
+        }
+        try {
+            return UUID.fromString(jti);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
     }
 
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    private static ByteBuffer digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return ByteBuffer.wrap(sha256.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
 
     public Boolean validateToken(String token, String userId) {
-        final String extractedUserId = extractUserId(token);
-        return (extractedUserId.equals(userId) && !isTokenExpired(token));
+        TokenClaims claims = verify(token);
+        return claims.subject().equals(userId) && !claims.isExpired(Instant.now());
     }
-}
\ No newline at end of file
+}
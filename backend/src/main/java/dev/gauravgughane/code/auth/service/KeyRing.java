@@ -0,0 +1,110 @@
+package dev.gauravgughane.code.auth.service;
+
+import io.jsonwebtoken.security.Jwks;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * JWT signing and verification keys, reloaded from the SigningKeySource in the
+ * background. Lookups read an immutable snapshot; the JWKS document is rendered once per
+ * reload, not per request.
+ */
+@Service
+public class KeyRing {
+
+    private static final Logger log = LoggerFactory.getLogger(KeyRing.class);
+
+    private record Snapshot(Map<String, SigningKey> byKid, SigningKey signing, String jwks, String etag) {}
+
+    private final SigningKeySource source;
+    private volatile Snapshot snapshot;
+
+    public KeyRing(SigningKeySource source) {
+        this.source = source;
+    }
+
+    @PostConstruct
+    public void load() throws Exception {
+        source.rotate(Instant.now());
+        reload();
+        log.info("Key ring loaded {} keys, signing with {}", snapshot.byKid().size(), snapshot.signing().kid());
+    }
+
+    @Scheduled(fixedDelayString = "${auth.jwt.keys.refresh-interval:60s}",
+            initialDelayString = "${auth.jwt.keys.refresh-interval:60s}")
+    public void refresh() {
+        try {
+            source.rotate(Instant.now());
+            reload();
+        } catch (Exception e) {
+            // Keep serving with the keys we have
+            log.warn("Key ring refresh failed: {}", e.getMessage());
+        }
+    }
+
+    public SigningKey signingKey() {
+        return snapshot.signing();
+    }
+
+    // Null for unknown or dropped key ids
+    public PublicKey verificationKey(String kid) {
+        SigningKey key = kid != null ? snapshot.byKid().get(kid) : null;
+        return key != null ? key.publicKey() : null;
+    }
+
+    public String jwks() {
+        return snapshot.jwks();
+    }
+
+    public String jwksEtag() {
+        return snapshot.etag();
+    }
+
+    private void reload() throws Exception {
+        List<SigningKey> keys = source.load();
+        Instant now = Instant.now();
+        // Newest key that is already active; before any is, the earliest one
+        SigningKey signing = keys.stream()
+                .filter(SigningKey::canSign)
+                .filter(k -> !k.activatesAt().isAfter(now))
+                .max(Comparator.comparing(SigningKey::activatesAt))
+                .or(() -> keys.stream().filter(SigningKey::canSign).min(Comparator.comparing(SigningKey::activatesAt)))
+                .orElseThrow(() -> new IllegalStateException("No JWT signing key available"));
+
+        String jwks = keys.stream()
+                .map(k -> Jwks.json(Jwks.builder().key(k.publicKey())
+                        .id(k.kid())
+                        .algorithm(k.algorithm().signature().getId())
+                        .publicKeyUse("sig")
+                        .build()))
+                .collect(Collectors.joining(",", "{\"keys\":[", "]}"));
+
+        snapshot = new Snapshot(
+                keys.stream().collect(Collectors.toUnmodifiableMap(SigningKey::kid, Function.identity())),
+                signing, jwks, etag(jwks));
+    }
+
+    private static String etag(String jwks) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(jwks.getBytes(StandardCharsets.UTF_8));
+            return "\"" + HexFormat.of().formatHex(hash, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package dev.gauravgughane.code.auth.service;
+
+import dev.gauravgughane.code.auth.config.ShardRouter;
+import dev.gauravgughane.code.auth.config.TenantSchema;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Write-behind for users.last_login. Logins only update an in-memory map holding the
+ * latest timestamp per (schema, user); a scheduled flush turns it into one JDBC batch
+ * per schema. Repeated logins between flushes collapse into a single UPDATE, and the
+ * column is at most one flush interval behind.
+ */
+@Component
+public class LastLoginRecorder {
+
+    private static final Logger log = LoggerFactory.getLogger(LastLoginRecorder.class);
+
+    private record Key(String schema, UUID userId) {}
+
+    private final ShardRouter shardRouter;
+    private final TenantRegistry tenantRegistry;
+    private final boolean enabled;
+    private final Map<Key, Instant> pending = new ConcurrentHashMap<>();
+
+    private final Counter recorded;
+    private final Counter coalesced;
+    private final Counter written;
+    private final Counter failed;
+    private final Timer flushTimer;
+
+    public LastLoginRecorder(ShardRouter shardRouter,
+                             TenantRegistry tenantRegistry,
+                             @Value("${auth.last-login.enabled:true}") boolean enabled,
+                             MeterRegistry meterRegistry) {
+        this.shardRouter = shardRouter;
+        this.tenantRegistry = tenantRegistry;
+        this.enabled = enabled;
+
+        this.recorded = Counter.builder("auth.last_login.recorded")
+                .description("Logins reported to the write-behind buffer")
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("auth.last_login.coalesced")
+                .description("Logins folded into an already pending update")
+                .register(meterRegistry);
+        this.written = Counter.builder("auth.last_login.written")
+                .description("last_login rows updated")
+                .register(meterRegistry);
+        this.failed = Counter.builder("auth.last_login.flush.failures")
+                .description("Flushes that failed and were retried later")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("auth.last_login.flush")
+                .description("Time to write one batch of pending last_login updates")
+                .register(meterRegistry);
+        Gauge.builder("auth.last_login.pending", pending, Map::size)
+                .description("Users with a last_login update not yet written")
+                .register(meterRegistry);
+    }
+
+    public void record(String schema, UUID userId, Instant loginAt) {
+        // public has no users table; only tenant schemas are tracked
+        if (!enabled || TenantSchema.DEFAULT_SCHEMA.equals(schema)) {
+            return;
+        }
+        recorded.increment();
+        Key key = new Key(schema, userId);
+        Instant previous = pending.putIfAbsent(key, loginAt);
+        if (previous != null) {
+            coalesced.increment();
+            pending.merge(key, loginAt, LastLoginRecorder::latest);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${auth.last-login.flush-interval:5s}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<String, Map<UUID, Instant>> bySchema = new HashMap<>();
+        for (Map.Entry<Key, Instant> entry : pending.entrySet()) {
+            // Conditional remove: a login that lands meanwhile stays pending for the next flush
+            if (pending.remove(entry.getKey(), entry.getValue())) {
+                bySchema.computeIfAbsent(entry.getKey().schema(), s -> new HashMap<>())
+                        .put(entry.getKey().userId(), entry.getValue());
+            }
+        }
+
+        flushTimer.record(() -> {
+            for (Map.Entry<String, Map<UUID, Instant>> entry : bySchema.entrySet()) {
+                try {
+                    write(entry.getKey(), entry.getValue());
+                } catch (SQLException e) {
+                    log.warn("Failed to write last_login for {} users in {}: {}",
+                            entry.getValue().size(), entry.getKey(), e.getMessage());
+                    failed.increment();
+                    requeue(entry.getKey(), entry.getValue());
+                }
+            }
+        });
+    }
+
+    private void write(String schema, Map<UUID, Instant> logins) throws SQLException {
+        // The guard keeps an older buffered value from overwriting a newer one written by another node
+        String sql = "UPDATE " + TenantSchema.quote(schema) + ".users SET last_login = ? "
+                + "WHERE id = ? AND (last_login IS NULL OR last_login < ?)";
+        List<Map.Entry<UUID, Instant>> rows = new ArrayList<>(logins.entrySet());
+        try (Connection conn = shardRouter.dataSource(tenantRegistry.shardOf(schema)).getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (Map.Entry<UUID, Instant> row : rows) {
+                Timestamp at = Timestamp.from(row.getValue());
+                stmt.setTimestamp(1, at);
+                stmt.setObject(2, row.getKey());
+                stmt.setTimestamp(3, at);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+        written.increment(rows.size());
+    }
+
+    private void requeue(String schema, Map<UUID, Instant> logins) {
+        logins.forEach((userId, at) -> pending.merge(new Key(schema, userId), at, LastLoginRecorder::latest));
+    }
+
+    private static Instant latest(Instant a, Instant b) {
+        return a.isAfter(b) ? a : b;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+        if (!pending.isEmpty()) {
+            log.warn("Shutting down with {} last_login updates unwritten", pending.size());
+        }
+    }
+}
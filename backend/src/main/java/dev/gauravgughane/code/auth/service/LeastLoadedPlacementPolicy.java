@@ -0,0 +1,20 @@
+package dev.gauravgughane.code.auth.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+// New tenants go to the shard with the fewest tenants, so an added node fills up first
+@Component
+@ConditionalOnProperty(name = "auth.shards.placement", havingValue = "least-loaded", matchIfMissing = true)
+public class LeastLoadedPlacementPolicy implements ShardPlacementPolicy {
+
+    @Override
+    public String place(String tenantId, Map<String, Integer> tenantsPerShard) {
+        return tenantsPerShard.entrySet().stream()
+                .min(Map.Entry.<String, Integer>comparingByValue().thenComparing(Map.Entry.comparingByKey()))
+                .map(Map.Entry::getKey)
+                .orElseThrow(() -> new IllegalStateException("No shard is open for new tenants"));
+    }
+}
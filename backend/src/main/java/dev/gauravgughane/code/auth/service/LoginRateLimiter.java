@@ -0,0 +1,136 @@
+package dev.gauravgughane.code.auth.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.gauravgughane.code.auth.config.LoginRateLimitProperties;
+import dev.gauravgughane.code.auth.config.LoginRateLimitProperties.Limit;
+import dev.gauravgughane.code.auth.config.TenantContext;
+import dev.gauravgughane.code.auth.exception.RateLimitedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Login throttling by client IP, tenant and (tenant, email), checked before the user
+ * lookup and BCrypt run.
+ *
+ * Each bucket is a single AtomicLong holding the GCRA "theoretical arrival time", so
+ * admission is one CAS and needs no lock. Buckets live in a size-bounded cache and are
+ * dropped after sitting idle.
+ */
+@Component
+public class LoginRateLimiter {
+
+    private static final long NANOS_PER_MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    private final LoginRateLimitProperties properties;
+    private final Cache<String, AtomicLong> buckets;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Counter> throttledCounters = new ConcurrentHashMap<>();
+
+    public LoginRateLimiter(LoginRateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxBuckets())
+                .expireAfterAccess(properties.getIdleEviction())
+                .build();
+
+        Gauge.builder("auth.login.rate_limit.buckets", buckets, Cache::estimatedSize)
+                .description("Live login throttling buckets")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Throws RateLimitedException when any of the three budgets is exhausted.
+     * The email is expected in normalized form.
+     */
+    public void check(String tenantId, String email, String clientIp) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        List<Attempt> attempts = new ArrayList<>(3);
+        if (clientIp != null) {
+            addAttempt(attempts, "ip", "ip:" + clientIp, properties.getIp());
+        }
+        addAttempt(attempts, "tenant", "t:" + tenantId, properties.tenantLimitFor(tenantId));
+        if (email != null) {
+            addAttempt(attempts, "email", "e:" + tenantId + ':' + email, properties.emailLimitFor(tenantId));
+        }
+
+        // Every scope is checked before any is charged, so a request that one scope rejects
+        // does not use up the budgets of the others
+        long now = System.nanoTime();
+        for (Attempt attempt : attempts) {
+            long waitNanos = waitNanos(attempt.bucket().get(), attempt.limit(), now);
+            if (waitNanos > 0) {
+                throttle(attempt.scope(), waitNanos);
+            }
+        }
+        for (Attempt attempt : attempts) {
+            // Only fails when a concurrent request took the last permit since the check above
+            long waitNanos = tryAcquire(attempt.bucket(), attempt.limit(), now);
+            if (waitNanos > 0) {
+                throttle(attempt.scope(), waitNanos);
+            }
+        }
+    }
+
+    private void addAttempt(List<Attempt> attempts, String scope, String key, Limit limit) {
+        if (limit.getPermitsPerMinute() <= 0) {
+            return;
+        }
+        attempts.add(new Attempt(scope, buckets.get(key, k -> new AtomicLong(Long.MIN_VALUE)), limit));
+    }
+
+    private void throttle(String scope, long waitNanos) {
+        throttledCounter(scope).increment();
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos) + 1);
+        throw new RateLimitedException("Too many login attempts, retry later", retryAfterSeconds);
+    }
+
+    // GCRA: returns 0 when admitted, otherwise how long until the next attempt would be
+    private static long tryAcquire(AtomicLong bucket, Limit limit, long now) {
+        while (true) {
+            long tat = bucket.get();
+            long waitNanos = waitNanos(tat, limit, now);
+            if (waitNanos > 0) {
+                return waitNanos;
+            }
+            if (bucket.compareAndSet(tat, Math.max(tat, now) + interval(limit))) {
+                return 0;
+            }
+        }
+    }
+
+    // What tryAcquire would answer for this "theoretical arrival time", without taking a permit
+    private static long waitNanos(long tat, Limit limit, long now) {
+        long interval = interval(limit);
+        long tolerance = interval * Math.max(1, limit.getBurst());
+        return Math.max(tat, now) + interval - tolerance - now;
+    }
+
+    private static long interval(Limit limit) {
+        return NANOS_PER_MINUTE / limit.getPermitsPerMinute();
+    }
+
+    // Tagged with the request's tenant schema, like the other per-tenant meters
+    private Counter throttledCounter(String scope) {
+        String tenant = TenantContext.getSchema();
+        return throttledCounters.computeIfAbsent(scope + '|' + tenant, k -> Counter.builder("auth.login.throttled")
+                .description("Login attempts rejected by the rate limiter")
+                .tag("scope", scope)
+                .tag("tenant", tenant)
+                .register(meterRegistry));
+    }
+
+    private record Attempt(String scope, AtomicLong bucket, Limit limit) {}
+}
@@ -0,0 +1,136 @@
+package dev.gauravgughane.code.auth.service;
+
+import dev.gauravgughane.code.auth.config.ContextSnapshot;
+import dev.gauravgughane.code.auth.config.RequestTrace;
+import dev.gauravgughane.code.auth.config.TenantContext;
+import dev.gauravgughane.code.auth.exception.ServiceBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs BCrypt on a small CPU-sized pool instead of request threads. The queue in front
+ * of it is bounded; when it is full, callers get a ServiceBusyException (503) right away
+ * instead of piling up behind each other.
+ */
+@Service
+public class PasswordHashingService {
+
+    private final PasswordEncoder passwordEncoder;
+    private final long retryAfterSeconds;
+    private final ThreadPoolExecutor executor;
+
+    private final MeterRegistry meterRegistry;
+    // "operation|schema" -> BCrypt work timer
+    private final Map<String, Timer> hashTimers = new ConcurrentHashMap<>();
+    private final Timer queueWaitTimer;
+    private final Counter rejected;
+
+    public PasswordHashingService(PasswordEncoder passwordEncoder,
+                                  @Value("${auth.password.threads:0}") int threads,
+                                  @Value("${auth.password.queue-capacity:64}") int queueCapacity,
+                                  @Value("${auth.password.retry-after-seconds:1}") long retryAfterSeconds,
+                                  MeterRegistry meterRegistry) {
+        this.passwordEncoder = passwordEncoder;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.meterRegistry = meterRegistry;
+
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.queueWaitTimer = Timer.builder("auth.password.queue.wait")
+                .description("Time hashing tasks spent queued before a worker picked them up")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("auth.password.rejected")
+                .description("Hashing requests refused because the queue was full")
+                .register(meterRegistry);
+        Gauge.builder("auth.password.queue.depth", executor, e -> e.getQueue().size())
+                .description("Hashing tasks waiting for a worker")
+                .register(meterRegistry);
+        Gauge.builder("auth.password.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Hashing workers currently busy")
+                .register(meterRegistry);
+    }
+
+    public String encode(String rawPassword) {
+        return submit(hashTimer("encode"), () -> passwordEncoder.encode(rawPassword));
+    }
+
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return submit(hashTimer("verify"), () -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    // True when the stored hash was produced with a lower cost than the configured one
+    public boolean needsRehash(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T submit(Timer workTimer, Callable<T> work) {
+        long queuedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(ContextSnapshot.capture().wrap(() -> {
+                queueWaitTimer.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+                return workTimer.recordCallable(work);
+            }));
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new ServiceBusyException("Authentication is temporarily overloaded, retry shortly", retryAfterSeconds);
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing password", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        } finally {
+            // Queue wait plus work, as seen by the request
+            RequestTrace.record("password", System.nanoTime() - queuedAt);
+        }
+    }
+
+    // Tagged with the calling request's tenant schema
+    private Timer hashTimer(String operation) {
+        String tenant = TenantContext.getSchema();
+        return hashTimers.computeIfAbsent(operation + "|" + tenant, k -> Timer.builder("auth.password.hash")
+                .description("BCrypt work time")
+                .tag("operation", operation)
+                .tag("tenant", tenant)
+                .register(meterRegistry));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
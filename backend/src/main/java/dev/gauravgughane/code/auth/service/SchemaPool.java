@@ -0,0 +1,255 @@
+package dev.gauravgughane.code.auth.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps a stock of fully built, unassigned tenant schemas (public.schema_pool) so new
+ * tenants are onboarded with a rename instead of inline DDL.
+ *
+ * Each pooled schema is built and recorded in one transaction, so a crash mid-build
+ * leaves nothing behind. Claiming renames the schema and inserts the tenants row in the
+ * caller's transaction. The refill is skipped on nodes that lose the advisory lock, so
+ * only one node tops up the pool at a time.
+ */
+@Component
+public class SchemaPool {
+
+    private static final Logger log = LoggerFactory.getLogger(SchemaPool.class);
+
+    private static final String POOL_PREFIX = "pool_";
+
+    private final DataSource dataSource;
+    private final boolean enabled;
+    private final int lowWatermark;
+    private final int target;
+
+    private final AtomicInteger depth = new AtomicInteger();
+    private final Timer claimTimer;
+    private final Timer buildTimer;
+    private final Counter claimed;
+    private final Counter misses;
+
+    public SchemaPool(DataSource dataSource,
+                      @Value("${auth.tenant.schema-pool.enabled:true}") boolean enabled,
+                      @Value("${auth.tenant.schema-pool.low-watermark:2}") int lowWatermark,
+                      @Value("${auth.tenant.schema-pool.target:5}") int target,
+                      MeterRegistry meterRegistry) {
+        this.dataSource = dataSource;
+        this.enabled = enabled;
+        this.lowWatermark = lowWatermark;
+        this.target = Math.max(target, lowWatermark);
+
+        Gauge.builder("tenant.schema_pool.depth", depth, AtomicInteger::get)
+                .description("Pre-built schemas ready to be claimed (as of the last check)")
+                .register(meterRegistry);
+        this.claimTimer = Timer.builder("tenant.schema_pool.claim")
+                .description("Time to claim a pooled schema for a new tenant")
+                .register(meterRegistry);
+        this.buildTimer = Timer.builder("tenant.schema_pool.build")
+                .description("Time to build one pooled schema")
+                .register(meterRegistry);
+        this.claimed = Counter.builder("tenant.schema_pool.claims")
+                .description("Tenants provisioned from the pool")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("tenant.schema_pool.claims")
+                .description("Tenants provisioned from the pool")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Claims a pooled schema for the tenant within conn's current transaction. Returns
+     * false when the pool is empty (or disabled) and the caller has to build inline.
+     */
+    public boolean claim(Connection conn, String tenantId, String name) throws SQLException {
+        if (!enabled) {
+            return false;
+        }
+        long start = System.nanoTime();
+        // A failed claim (e.g. a leftover schema already has the tenant's name) must not
+        // abort the caller's transaction; it falls back to the inline build instead
+        Savepoint savepoint = conn.setSavepoint();
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT public.claim_tenant_schema(?, ?)")) {
+            stmt.setString(1, tenantId);
+            stmt.setString(2, name);
+            try (ResultSet rs = stmt.executeQuery()) {
+                boolean hit = rs.next() && rs.getObject(1) != null;
+                if (hit) {
+                    claimTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    claimed.increment();
+                    depth.updateAndGet(d -> Math.max(0, d - 1));
+                } else {
+                    misses.increment();
+                }
+                return hit;
+            }
+        } catch (SQLException e) {
+            conn.rollback(savepoint);
+            log.warn("Could not claim a pooled schema for {}: {}", tenantId, e.getMessage());
+            misses.increment();
+            return false;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${auth.tenant.schema-pool.refill-interval:30s}", initialDelayString = "5s")
+    public void refill() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            removeDangling();
+            int ready = count();
+            depth.set(ready);
+            if (ready >= lowWatermark) {
+                return;
+            }
+            while (ready < target && buildOne()) {
+                ready++;
+                depth.set(ready);
+            }
+        } catch (SQLException e) {
+            log.warn("Schema pool refill failed: {}", e.getMessage());
+        }
+    }
+
+    // Builds one schema if this node holds the refill lock and the pool is still short
+    private boolean buildOne() throws SQLException {
+        String schema = POOL_PREFIX + HexFormat.of().formatHex(randomBytes());
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                if (!tryRefillLock(conn) || countIn(conn) >= target) {
+                    conn.rollback();
+                    return false;
+                }
+                long start = System.nanoTime();
+                try (PreparedStatement build = conn.prepareStatement("SELECT public.build_tenant_schema(?)");
+                     PreparedStatement record = conn.prepareStatement("INSERT INTO public.schema_pool (schema_name) VALUES (?)")) {
+                    build.setString(1, schema);
+                    build.execute();
+                    record.setString(1, schema);
+                    record.executeUpdate();
+                }
+                conn.commit();
+                buildTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                log.info("Added {} to the schema pool", schema);
+                return true;
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Drops pool_* schemas with no pool row and pool rows with no schema. Neither should
+     * exist given the single-transaction build, but a manual drop or an interrupted
+     * restore can leave them, and a dangling row would make claims fail.
+     */
+    private void removeDangling() throws SQLException {
+        List<String> orphanSchemas = new ArrayList<>();
+        try (Connection conn = dataSource.getConnection();
+             Statement stmt = conn.createStatement()) {
+            try (ResultSet rs = stmt.executeQuery(
+                    "SELECT n.nspname FROM pg_namespace n "
+                            + "WHERE n.nspname LIKE 'pool\\_%' "
+                            + "AND NOT EXISTS (SELECT 1 FROM public.schema_pool p WHERE p.schema_name = n.nspname)")) {
+                while (rs.next()) {
+                    orphanSchemas.add(rs.getString(1));
+                }
+            }
+            int rows = stmt.executeUpdate(
+                    "DELETE FROM public.schema_pool p "
+                            + "WHERE NOT EXISTS (SELECT 1 FROM pg_namespace n WHERE n.nspname = p.schema_name)");
+            if (rows > 0) {
+                log.warn("Removed {} schema pool entries without a schema", rows);
+            }
+        }
+        for (String schema : orphanSchemas) {
+            dropOrphan(schema);
+        }
+    }
+
+    private void dropOrphan(String schema) throws SQLException {
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                // Re-check under the refill lock so a build committing right now is not dropped
+                if (tryRefillLock(conn) && !isPooled(conn, schema)) {
+                    try (Statement stmt = conn.createStatement()) {
+                        stmt.execute("DROP SCHEMA IF EXISTS \"" + schema.replace("\"", "\"\"") + "\" CASCADE");
+                    }
+                    log.warn("Dropped orphaned pool schema {}", schema);
+                }
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    private int count() throws SQLException {
+        try (Connection conn = dataSource.getConnection()) {
+            return countIn(conn);
+        }
+    }
+
+    private static int countIn(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT count(*) FROM public.schema_pool")) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private static boolean isPooled(Connection conn, String schema) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT 1 FROM public.schema_pool WHERE schema_name = ?")) {
+            stmt.setString(1, schema);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    private static boolean tryRefillLock(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT pg_try_advisory_xact_lock(hashtext('schema-pool'))")) {
+            rs.next();
+            return rs.getBoolean(1);
+        }
+    }
+
+    private static byte[] randomBytes() {
+        byte[] bytes = new byte[8];
+        ThreadLocalRandom.current().nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,292 @@
+package dev.gauravgughane.code.auth.service;
+
+import dev.gauravgughane.code.auth.config.ShardRouter;
+import dev.gauravgughane.code.auth.config.TenantConnectionProvider;
+import dev.gauravgughane.code.auth.config.TenantContext;
+import dev.gauravgughane.code.auth.config.TenantSchema;
+import dev.gauravgughane.code.auth.entity.UserRole;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Refresh-token sessions in the tenant's sessions table. A refresh token is
+ * "&lt;session id&gt;.&lt;secret&gt;"; only SHA-256 of the secret is stored. The secret is 256
+ * random bits, so a fast hash is enough and refreshing costs one primary-key UPDATE.
+ *
+ * Every refresh swaps the secret with a compare-and-set on the stored hash and keeps the
+ * hash it replaced. Presenting that rotated-out secret again means the token was copied,
+ * so the session is revoked for both parties; any other wrong secret is just rejected,
+ * so guessing cannot end someone else's session.
+ */
+@Service
+public class SessionService {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionService.class);
+
+    private static final int SECRET_BYTES = 32;
+    private static final int MAX_USER_AGENT_LENGTH = 512;
+
+    public record Refreshed(UUID userId, UserRole role, String refreshToken) {}
+
+    private final TenantConnectionProvider connectionProvider;
+    private final ShardRouter shardRouter;
+    private final TenantRegistry tenantRegistry;
+    private final AuditService auditService;
+    private final Duration refreshTokenTtl;
+    private final Duration maxSessionAge;
+    private final int sweepBatchSize;
+    private final SecureRandom random = new SecureRandom();
+
+    private final Counter rotated;
+    private final Counter rejected;
+    private final Counter reused;
+    private final Counter swept;
+
+    public SessionService(TenantConnectionProvider connectionProvider,
+                          ShardRouter shardRouter,
+                          TenantRegistry tenantRegistry,
+                          AuditService auditService,
+                          @Value("${auth.session.refresh-token-ttl:30d}") Duration refreshTokenTtl,
+                          @Value("${auth.session.max-age:90d}") Duration maxSessionAge,
+                          @Value("${auth.session.sweep.batch-size:500}") int sweepBatchSize,
+                          MeterRegistry meterRegistry) {
+        this.connectionProvider = connectionProvider;
+        this.shardRouter = shardRouter;
+        this.tenantRegistry = tenantRegistry;
+        this.auditService = auditService;
+        this.refreshTokenTtl = refreshTokenTtl;
+        this.maxSessionAge = maxSessionAge;
+        this.sweepBatchSize = sweepBatchSize;
+
+        this.rotated = refreshCounter(meterRegistry, "rotated");
+        this.rejected = refreshCounter(meterRegistry, "rejected");
+        this.reused = refreshCounter(meterRegistry, "reused");
+        this.swept = Counter.builder("auth.session.swept")
+                .description("Expired sessions deleted by the sweeper")
+                .register(meterRegistry);
+    }
+
+    public Duration refreshTokenTtl() {
+        return refreshTokenTtl;
+    }
+
+    // Opens a session for the user in the current tenant and returns its refresh token
+    public String open(UUID userId, String ipAddress, String userAgent) throws SQLException {
+        UUID sessionId = UUID.randomUUID();
+        String secret = newSecret();
+        Instant now = Instant.now();
+        withConnection(conn -> {
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "INSERT INTO sessions (id, user_id, token_hash, created_at, expires_at, ip_address, user_agent) "
+                            + "VALUES (?, ?, ?, ?, ?, ?::inet, ?)")) {
+                // Both timestamps from our clock, like every later comparison against them
+                stmt.setObject(1, sessionId);
+                stmt.setObject(2, userId);
+                stmt.setString(3, hash(secret));
+                stmt.setTimestamp(4, Timestamp.from(now));
+                stmt.setTimestamp(5, Timestamp.from(now.plus(refreshTokenTtl)));
+                stmt.setString(6, ipAddress);
+                stmt.setString(7, userAgent != null && userAgent.length() > MAX_USER_AGENT_LENGTH
+                        ? userAgent.substring(0, MAX_USER_AGENT_LENGTH) : userAgent);
+                stmt.executeUpdate();
+            }
+            return null;
+        });
+        return sessionId + "." + secret;
+    }
+
+    /**
+     * Rotates the refresh token. Returns null when the token is malformed, unknown or
+     * expired; the token rotated out last also revokes its session.
+     */
+    public Refreshed refresh(String refreshToken) throws SQLException {
+        RefreshToken token = RefreshToken.parse(refreshToken);
+        if (token == null || !hasTenant()) {
+            rejected.increment();
+            return null;
+        }
+        String secret = newSecret();
+        Instant now = Instant.now();
+        Refreshed refreshed = withConnection(conn -> {
+            // Sliding expiry, capped by the session's absolute age
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "UPDATE sessions s SET previous_token_hash = s.token_hash, token_hash = ?, "
+                            + "expires_at = LEAST(?, s.created_at + ?::interval) "
+                            + "FROM users u "
+                            + "WHERE s.id = ? AND s.token_hash = ? AND s.expires_at > ? AND u.id = s.user_id "
+                            + "RETURNING s.user_id, u.role")) {
+                stmt.setString(1, hash(secret));
+                stmt.setTimestamp(2, Timestamp.from(now.plus(refreshTokenTtl)));
+                stmt.setString(3, maxSessionAge.toSeconds() + " seconds");
+                stmt.setObject(4, token.sessionId());
+                stmt.setString(5, hash(token.secret()));
+                stmt.setTimestamp(6, Timestamp.from(now));
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        return new Refreshed(rs.getObject(1, UUID.class), UserRole.valueOf(rs.getString(2)),
+                                token.sessionId() + "." + secret);
+                    }
+                }
+            }
+            // The CAS missed: no such session, an expired one, a replayed secret or a wrong one.
+            // Only the replay ends the session
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "DELETE FROM sessions WHERE id = ? AND previous_token_hash = ? "
+                            + "RETURNING user_id, expires_at > ? AS live")) {
+                stmt.setObject(1, token.sessionId());
+                stmt.setString(2, hash(token.secret()));
+                stmt.setTimestamp(3, Timestamp.from(now));
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next() && rs.getBoolean("live")) {
+                        UUID userId = rs.getObject("user_id", UUID.class);
+                        reused.increment();
+                        // The session id is half of a refresh token, so it stays out of logs and audit
+                        log.warn("Refresh token reuse for user {}; session revoked", userId);
+                        auditService.record(AuditService.REFRESH_REUSE, "SESSION", userId, null, null);
+                    }
+                }
+            }
+            return null;
+        });
+        if (refreshed != null) {
+            rotated.increment();
+        } else {
+            rejected.increment();
+        }
+        return refreshed;
+    }
+
+    // Ends the token's session; returns its user, or null if the token was not valid
+    public UUID close(String refreshToken) throws SQLException {
+        RefreshToken token = RefreshToken.parse(refreshToken);
+        if (token == null || !hasTenant()) {
+            return null;
+        }
+        return withConnection(conn -> {
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "DELETE FROM sessions WHERE id = ? AND token_hash = ? RETURNING user_id")) {
+                stmt.setObject(1, token.sessionId());
+                stmt.setString(2, hash(token.secret()));
+                try (ResultSet rs = stmt.executeQuery()) {
+                    return rs.next() ? rs.getObject(1, UUID.class) : null;
+                }
+            }
+        });
+    }
+
+    // Ends every session of the user in the current tenant and returns how many there were
+    public int closeAll(UUID userId) throws SQLException {
+        return withConnection(conn -> {
+            try (PreparedStatement stmt = conn.prepareStatement("DELETE FROM sessions WHERE user_id = ?")) {
+                stmt.setObject(1, userId);
+                return stmt.executeUpdate();
+            }
+        });
+    }
+
+    /**
+     * Deletes expired sessions tenant by tenant in small autocommitted batches picked off
+     * the expires_at index. SKIP LOCKED steps around rows a refresh is updating right now.
+     */
+    @Scheduled(fixedDelayString = "${auth.session.sweep.interval:10m}", initialDelayString = "1m")
+    public void sweep() {
+        for (String schema : tenantRegistry.activeSchemas()) {
+            String sessions = TenantSchema.quote(schema) + ".sessions";
+            String sql = "DELETE FROM " + sessions + " WHERE id IN ("
+                    + "SELECT id FROM " + sessions + " WHERE expires_at < ? "
+                    + "ORDER BY expires_at LIMIT ? FOR UPDATE SKIP LOCKED)";
+            try (Connection conn = shardRouter.dataSource(tenantRegistry.shardOf(schema)).getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(sql)) {
+                int deleted;
+                do {
+                    stmt.setTimestamp(1, Timestamp.from(Instant.now()));
+                    stmt.setInt(2, sweepBatchSize);
+                    deleted = stmt.executeUpdate();
+                    swept.increment(deleted);
+                } while (deleted == sweepBatchSize);
+            } catch (SQLException e) {
+                log.warn("Session sweep failed for {}: {}", schema, e.getMessage());
+            }
+        }
+    }
+
+    private interface SqlWork<T> {
+        T run(Connection conn) throws SQLException;
+    }
+
+    // The public schema has no sessions table; a token presented there matches nothing
+    private static boolean hasTenant() {
+        return !TenantSchema.DEFAULT_SCHEMA.equals(TenantContext.getSchema());
+    }
+
+    // Tenant connection: search_path is the tenant schema and the bulkhead accounts for it
+    private <T> T withConnection(SqlWork<T> work) throws SQLException {
+        String schema = TenantContext.getSchema();
+        if (!hasTenant()) {
+            throw new IllegalStateException("Sessions need a tenant (X-Project-ID)");
+        }
+        Connection conn = connectionProvider.getConnection(schema);
+        try {
+            return work.run(conn);
+        } finally {
+            connectionProvider.releaseConnection(schema, conn);
+        }
+    }
+
+    private String newSecret() {
+        byte[] bytes = new byte[SECRET_BYTES];
+        random.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static String hash(String secret) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(secret.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static Counter refreshCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("auth.session.refresh")
+                .description("Refresh token presentations by outcome")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private record RefreshToken(UUID sessionId, String secret) {
+
+        static RefreshToken parse(String token) {
+            int dot = token != null ? token.indexOf('.') : -1;
+            if (dot <= 0 || dot == token.length() - 1) {
+                return null;
+            }
+            try {
+                return new RefreshToken(UUID.fromString(token.substring(0, dot)), token.substring(dot + 1));
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+    }
+}
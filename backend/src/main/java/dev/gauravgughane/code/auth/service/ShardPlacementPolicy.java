@@ -0,0 +1,13 @@
+package dev.gauravgughane.code.auth.service;
+
+import java.util.Map;
+
+/**
+ * Picks the shard a new tenant is created on. Selected by auth.shards.placement; only
+ * shards open for new tenants are offered.
+ */
+public interface ShardPlacementPolicy {
+
+    // tenantsPerShard: every open shard, with the number of tenants it holds now
+    String place(String tenantId, Map<String, Integer> tenantsPerShard);
+}
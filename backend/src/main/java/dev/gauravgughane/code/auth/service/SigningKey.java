@@ -0,0 +1,89 @@
+package dev.gauravgughane.code.auth.service;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.SignatureAlgorithm;
+
+import java.security.AlgorithmParameters;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.interfaces.ECKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Instant;
+
+/**
+ * One entry of the KeyRing. privateKey is null for keys that are only kept to verify
+ * tokens signed before a rotation. activatesAt is when the key may start signing; it is
+ * published in the JWKS before that so verifiers have it by the time tokens show up.
+ */
+public record SigningKey(String kid, Algorithm algorithm, PublicKey publicKey, PrivateKey privateKey, Instant activatesAt) {
+
+    public enum Algorithm {
+        ES256(Jwts.SIG.ES256, "EC"),
+        EDDSA(Jwts.SIG.EdDSA, "Ed25519");
+
+        private final SignatureAlgorithm signature;
+        private final String keyAlgorithm;
+
+        Algorithm(SignatureAlgorithm signature, String keyAlgorithm) {
+            this.signature = signature;
+            this.keyAlgorithm = keyAlgorithm;
+        }
+
+        public SignatureAlgorithm signature() {
+            return signature;
+        }
+
+        public SigningKey generate(String kid, Instant activatesAt) {
+            try {
+                KeyPairGenerator generator = KeyPairGenerator.getInstance(keyAlgorithm);
+                if (this == ES256) {
+                    generator.initialize(new ECGenParameterSpec("secp256r1"));
+                }
+                KeyPair pair = generator.generateKeyPair();
+                return new SigningKey(kid, this, pair.getPublic(), pair.getPrivate(), activatesAt);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Cannot generate " + name() + " key", e);
+            }
+        }
+
+        // X.509 SubjectPublicKeyInfo, as stored and as found in .pub files
+        public PublicKey decodePublic(byte[] encoded) throws GeneralSecurityException {
+            return checkCurve(KeyFactory.getInstance(keyAlgorithm).generatePublic(new X509EncodedKeySpec(encoded)));
+        }
+
+        // PKCS#8
+        public PrivateKey decodePrivate(byte[] encoded) throws GeneralSecurityException {
+            return checkCurve(KeyFactory.getInstance(keyAlgorithm).generatePrivate(new PKCS8EncodedKeySpec(encoded)));
+        }
+
+        // The EC key factory takes any named curve; ES256 is defined on P-256 only
+        private <K extends Key> K checkCurve(K key) throws GeneralSecurityException {
+            if (this == ES256) {
+                ECParameterSpec params = ((ECKey) key).getParams();
+                ECParameterSpec p256 = p256();
+                if (!params.getCurve().equals(p256.getCurve()) || !params.getOrder().equals(p256.getOrder())) {
+                    throw new GeneralSecurityException("ES256 needs a P-256 key");
+                }
+            }
+            return key;
+        }
+
+        private static ECParameterSpec p256() throws GeneralSecurityException {
+            AlgorithmParameters parameters = AlgorithmParameters.getInstance("EC");
+            parameters.init(new ECGenParameterSpec("secp256r1"));
+            return parameters.getParameterSpec(ECParameterSpec.class);
+        }
+    }
+
+    public boolean canSign() {
+        return privateKey != null;
+    }
+}
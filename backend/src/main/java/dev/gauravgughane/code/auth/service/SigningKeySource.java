@@ -0,0 +1,18 @@
+package dev.gauravgughane.code.auth.service;
+
+import java.time.Instant;
+import java.util.List;
+
+// Where the KeyRing gets its keys from (auth.jwt.keys.source)
+public interface SigningKeySource {
+
+    // Every key tokens may be signed or verified with, including ones not active yet
+    List<SigningKey> load() throws Exception;
+
+    /**
+     * Adds a key when the newest one is due for replacement and drops keys no live token
+     * can carry any more. Sources whose keys are managed outside the service keep the default.
+     */
+    default void rotate(Instant now) throws Exception {
+    }
+}
@@ -0,0 +1,230 @@
+package dev.gauravgughane.code.auth.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import dev.gauravgughane.code.auth.config.ShardRouter;
+import dev.gauravgughane.code.auth.config.TenantContext;
+import dev.gauravgughane.code.auth.config.TenantSchema;
+import dev.gauravgughane.code.auth.dto.TenantDescriptor;
+import dev.gauravgughane.code.auth.entity.UserRole;
+import dev.gauravgughane.code.auth.repository.BaseUserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Warms the node up before it reports ready. Spring Boot moves readiness to
+ * ACCEPTING_TRAFFIC only after every ApplicationRunner has returned, so
+ * /actuator/health/readiness stays OUT_OF_SERVICE until this is done.
+ *
+ * Tokens are signed and verified, BCrypt runs, every shard's pool opens its connections,
+ * and the login lookup and user listing run for the busiest tenants (the listing over
+ * loopback HTTP, through the filters and MVC). The first real requests then find the
+ * classes loaded, the hot paths compiled and the pools full. Failures are logged and
+ * never stop startup.
+ */
+@Component
+public class StartupWarmup implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupWarmup.class);
+
+    private static final String WARMUP_EMAIL = "warmup@warmup.invalid";
+
+    // Index and sequential scans of each tenant's users table since the statistics were reset
+    private static final String USER_TABLE_SCANS = "SELECT schemaname, COALESCE(idx_scan, 0) + COALESCE(seq_scan, 0) "
+            + "FROM pg_stat_user_tables WHERE relname = 'users' AND schemaname = ANY (?)";
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+
+    @Autowired
+    private BaseUserRepository userRepository;
+
+    @Autowired
+    private TenantRegistry tenantRegistry;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Value("${auth.warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${auth.warmup.tenants:10}")
+    private int tenants;
+
+    @Value("${auth.warmup.token-rounds:200}")
+    private int tokenRounds;
+
+    @Value("${auth.warmup.hash-rounds:3}")
+    private int hashRounds;
+
+    @Value("${auth.warmup.connections:10}")
+    private int connections;
+
+    @Value("${auth.warmup.request-rounds:20}")
+    private int requestRounds;
+
+    // Training runs (CDS archive) stop the JVM once warm
+    @Value("${auth.warmup.exit-when-done:false}")
+    private boolean exitWhenDone;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        step("tokens", this::warmTokens);
+        step("password hashing", this::warmPasswordHashing);
+        step("connections", this::warmConnections);
+        List<TenantDescriptor> busiest = new ArrayList<>();
+        step("busiest tenants", () -> busiest.addAll(busiestTenants()));
+        step("tenant queries", () -> warmTenantQueries(busiest));
+        step("requests", () -> warmRequests(busiest));
+        log.info("Warm-up finished in {} ms ({} tenants)",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), busiest.size());
+
+        if (exitWhenDone) {
+            System.exit(SpringApplication.exit(context));
+        }
+    }
+
+    private void warmTokens() {
+        // Fresh tokens each round: a repeated token would only exercise the verify cache
+        for (int i = 0; i < tokenRounds; i++) {
+            String token = jwtService.generateToken(UUID.randomUUID().toString(), TenantSchema.DEFAULT_SCHEMA, UserRole.USER);
+            jwtService.verify(token);
+        }
+    }
+
+    private void warmPasswordHashing() {
+        String password = UUID.randomUUID().toString();
+        String hash = passwordHashingService.encode(password);
+        for (int i = 0; i < hashRounds; i++) {
+            passwordHashingService.matches(password, hash);
+        }
+    }
+
+    // Holds connections at the same time so the pools open them now rather than under load
+    private void warmConnections() throws Exception {
+        for (String shard : shardRouter.shardIds()) {
+            DataSource dataSource = shardRouter.dataSource(shard);
+            int count = connections;
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                count = Math.min(count, dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize());
+            }
+            List<Connection> held = new ArrayList<>();
+            try {
+                for (int i = 0; i < count; i++) {
+                    held.add(dataSource.getConnection());
+                }
+            } finally {
+                for (Connection connection : held) {
+                    connection.close();
+                }
+            }
+        }
+    }
+
+    private List<TenantDescriptor> busiestTenants() throws Exception {
+        Map<String, List<String>> schemasByShard = tenantRegistry.activeSchemas().stream()
+                .collect(Collectors.groupingBy(tenantRegistry::shardOf));
+        Map<String, Long> scans = new HashMap<>();
+        for (Map.Entry<String, List<String>> shard : schemasByShard.entrySet()) {
+            try (Connection connection = shardRouter.dataSource(shard.getKey()).getConnection();
+                 PreparedStatement stmt = connection.prepareStatement(USER_TABLE_SCANS)) {
+                stmt.setArray(1, connection.createArrayOf("text", shard.getValue().toArray()));
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        scans.put(rs.getString(1), rs.getLong(2));
+                    }
+                }
+            }
+        }
+        return schemasByShard.values().stream()
+                .flatMap(List::stream)
+                .sorted(Comparator.comparingLong((String schema) -> scans.getOrDefault(schema, 0L)).reversed())
+                .limit(tenants)
+                .map(tenantRegistry::findBySchema)
+                .toList();
+    }
+
+    // Login lookup through Hibernate, the tenant connection provider and a search_path switch
+    private void warmTenantQueries(List<TenantDescriptor> busiest) {
+        for (TenantDescriptor tenant : busiest) {
+            TenantContext.set(tenant);
+            try {
+                userRepository.findLoginUser(WARMUP_EMAIL);
+            } finally {
+                TenantContext.clear();
+            }
+        }
+    }
+
+    private void warmRequests(List<TenantDescriptor> busiest) throws Exception {
+        if (!(context instanceof WebServerApplicationContext web) || web.getWebServer() == null) {
+            return;
+        }
+        String base = "http://localhost:" + web.getWebServer().getPort();
+        HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        List<HttpRequest> requests = new ArrayList<>();
+        requests.add(HttpRequest.newBuilder(URI.create(base + "/.well-known/jwks.json")).GET().build());
+        for (TenantDescriptor tenant : busiest) {
+            String token = jwtService.generateToken(UUID.randomUUID().toString(), tenant.tenantId(), UserRole.USER);
+            requests.add(HttpRequest.newBuilder(URI.create(base + "/api/users?size=1"))
+                    .header("Authorization", "Bearer " + token)
+                    .GET()
+                    .build());
+        }
+        for (int round = 0; round < requestRounds; round++) {
+            for (HttpRequest request : requests) {
+                http.send(request, HttpResponse.BodyHandlers.discarding());
+            }
+        }
+    }
+
+    private void step(String name, WarmupStep step) {
+        long start = System.nanoTime();
+        try {
+            step.run();
+            log.debug("Warm-up {} took {} ms", name, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (Exception e) {
+            log.warn("Warm-up step {} failed: {}", name, e.toString());
+        }
+    }
+
+    @FunctionalInterface
+    private interface WarmupStep {
+        void run() throws Exception;
+    }
+}
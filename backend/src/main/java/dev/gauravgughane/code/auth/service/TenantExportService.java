@@ -0,0 +1,148 @@
+package dev.gauravgughane.code.auth.service;
+
+import dev.gauravgughane.code.auth.config.TenantConnectionProvider;
+import dev.gauravgughane.code.auth.config.TenantContext;
+import dev.gauravgughane.code.auth.config.TenantSchema;
+import dev.gauravgughane.code.auth.exception.ServiceBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Streams a tenant's tables out with COPY ... TO STDOUT. Rows go from the server socket
+ * straight to the caller's stream, so heap use does not depend on table size. When the
+ * caller's stream fails (client disconnected) the driver cancels the COPY server-side.
+ */
+@Service
+public class TenantExportService {
+
+    public enum Dataset {
+        // Column lists are fixed here so secrets never leave: password_hash, token_hash, and
+        // session ids, which are the first half of every refresh token
+        USERS("SELECT id, name, email, role, created_at, updated_at, last_login FROM users ORDER BY created_at, id"),
+        SESSIONS("SELECT user_id, created_at, expires_at, ip_address, user_agent FROM sessions ORDER BY created_at, id"),
+        AUDIT_LOGS("SELECT id, user_id, action, resource_type, resource_id, old_values, new_values, ip_address, user_agent, created_at "
+                + "FROM audit_logs ORDER BY created_at, id");
+
+        private final String query;
+
+        Dataset(String query) {
+            this.query = query;
+        }
+
+        public String fileName() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    public enum Format { NDJSON, CSV }
+
+    private final TenantConnectionProvider connectionProvider;
+    private final int maxPerTenant;
+    private final Semaphore globalPermits;
+    private final Map<String, Semaphore> tenantPermits = new ConcurrentHashMap<>();
+
+    private final MeterRegistry meterRegistry;
+    private final Counter rejected;
+
+    public TenantExportService(TenantConnectionProvider connectionProvider,
+                               @Value("${auth.export.max-per-tenant:1}") int maxPerTenant,
+                               @Value("${auth.export.max-concurrent:4}") int maxConcurrent,
+                               MeterRegistry meterRegistry) {
+        this.connectionProvider = connectionProvider;
+        this.maxPerTenant = maxPerTenant;
+        this.globalPermits = new Semaphore(maxConcurrent);
+        this.meterRegistry = meterRegistry;
+        this.rejected = Counter.builder("auth.export.rejected")
+                .description("Exports refused because too many were already running")
+                .register(meterRegistry);
+    }
+
+    // Schema of the current tenant; fails for public, which has no tenant tables
+    public String currentSchema() {
+        String schema = TenantContext.getSchema();
+        if (TenantSchema.DEFAULT_SCHEMA.equals(schema)) {
+            throw new IllegalArgumentException("Export needs a tenant (X-Project-ID or a tenant token)");
+        }
+        return schema;
+    }
+
+    /**
+     * Reserves an export slot for the tenant. Throws ServiceBusyException when the tenant
+     * (or the node) is already at its export limit; close the permit when done.
+     */
+    public Permit acquire(String schema) {
+        Semaphore tenant = tenantPermits.computeIfAbsent(schema, s -> new Semaphore(maxPerTenant));
+        if (!tenant.tryAcquire()) {
+            rejected.increment();
+            throw new ServiceBusyException("An export is already running for this tenant", 30);
+        }
+        if (!globalPermits.tryAcquire()) {
+            tenant.release();
+            rejected.increment();
+            throw new ServiceBusyException("Too many exports running, retry later", 30);
+        }
+        return new Permit(tenant);
+    }
+
+    // Writes the dataset to out and returns the number of rows copied
+    public long export(String schema, Dataset dataset, Format format, OutputStream out) throws IOException, SQLException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            return copyOut(schema, copySql(dataset, format), out);
+        } finally {
+            sample.stop(Timer.builder("auth.export")
+                    .description("Time to stream one dataset export")
+                    .tag("dataset", dataset.fileName())
+                    .tag("format", format.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry));
+        }
+    }
+
+    public final class Permit implements AutoCloseable {
+
+        private final Semaphore tenant;
+
+        private Permit(Semaphore tenant) {
+            this.tenant = tenant;
+        }
+
+        @Override
+        public void close() {
+            globalPermits.release();
+            tenant.release();
+        }
+    }
+
+    private long copyOut(String schema, String sql, OutputStream out) throws SQLException, IOException {
+        // Tenant connection: search_path is the tenant schema and the bulkhead accounts for it
+        Connection conn = connectionProvider.getConnection(schema);
+        try {
+            return conn.unwrap(PGConnection.class).getCopyAPI().copyOut(sql, out);
+        } finally {
+            connectionProvider.releaseConnection(schema, conn);
+        }
+    }
+
+    private static String copySql(Dataset dataset, Format format) {
+        if (format == Format.CSV) {
+            return "COPY (" + dataset.query + ") TO STDOUT WITH (FORMAT csv, HEADER true)";
+        }
+        // One JSON document per line. CSV mode with control characters as quote and delimiter
+        // passes the JSON through unescaped; row_to_json never emits those bytes raw.
+        return "COPY (SELECT row_to_json(t) FROM (" + dataset.query + ") t) "
+                + "TO STDOUT WITH (FORMAT csv, QUOTE e'\\x01', DELIMITER e'\\x02')";
+    }
+}
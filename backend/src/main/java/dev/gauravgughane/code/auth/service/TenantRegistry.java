@@ -0,0 +1,335 @@
+package dev.gauravgughane.code.auth.service;
+
+import dev.gauravgughane.code.auth.config.ShardProperties;
+import dev.gauravgughane.code.auth.config.ShardRouter;
+import dev.gauravgughane.code.auth.config.TenantSchema;
+import dev.gauravgughane.code.auth.dto.TenantDescriptor;
+import dev.gauravgughane.code.auth.entity.TenantStatus;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory view of public.tenants. Lookups never touch the database; the map is loaded
+ * at startup and refreshed incrementally by updated_at, looking back far enough to catch
+ * late commits. Deleted rows leave no updated_at behind, so a periodic full reload drops
+ * tenants that are gone. public.tenants is the shard map too: it always lives on the main
+ * shard, and each row names the shard of its schema.
+ */
+@Service
+public class TenantRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(TenantRegistry.class);
+
+    public static final TenantDescriptor PUBLIC = new TenantDescriptor(
+            TenantSchema.DEFAULT_SCHEMA, TenantSchema.DEFAULT_SCHEMA, TenantStatus.ACTIVE, null, null, ShardRouter.MAIN, Instant.EPOCH);
+
+    // updated_at is the writing transaction's start time, so a provisioning transaction can
+    // commit after a newer row was already seen; refreshes look back this far to catch it.
+    // Re-registering a row changes nothing
+    private static final Duration REFRESH_OVERLAP = Duration.ofMinutes(2);
+
+    private static final String SELECT_TENANTS =
+            "SELECT tenant_id, status, connection_limit, connection_weight, shard, updated_at FROM public.tenants";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private SchemaPool schemaPool;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private ShardProperties shardProperties;
+
+    @Autowired
+    private ShardPlacementPolicy placementPolicy;
+
+    private final Map<String, TenantDescriptor> byTenantId = new ConcurrentHashMap<>();
+    private final Map<String, TenantDescriptor> bySchema = new ConcurrentHashMap<>();
+
+    // One provisioning attempt per tenant at a time within this node
+    private final Map<String, CompletableFuture<TenantDescriptor>> provisioning = new ConcurrentHashMap<>();
+
+    private volatile Instant lastSeenUpdate = Instant.EPOCH;
+
+    @PostConstruct
+    public void load() {
+        try {
+            refresh();
+            log.info("Tenant registry loaded {} tenants", byTenantId.size());
+        } catch (Exception e) {
+            // The scheduled refresh keeps retrying; only the public tenant resolves until then
+            log.error("Failed to load tenant registry", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${auth.tenant.registry.refresh-interval-ms:30000}",
+            initialDelayString = "${auth.tenant.registry.refresh-interval-ms:30000}")
+    public void refresh() throws SQLException {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(SELECT_TENANTS + " WHERE updated_at >= ?")) {
+            stmt.setTimestamp(1, Timestamp.from(lastSeenUpdate.minus(REFRESH_OVERLAP)));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    TenantDescriptor descriptor = toDescriptor(rs);
+                    register(descriptor);
+                    if (descriptor.updatedAt().isAfter(lastSeenUpdate)) {
+                        lastSeenUpdate = descriptor.updatedAt();
+                    }
+                }
+            }
+        }
+    }
+
+    // Re-reads every row and forgets tenants whose row was deleted
+    @Scheduled(fixedDelayString = "${auth.tenant.registry.full-reload-interval:10m}",
+            initialDelayString = "${auth.tenant.registry.full-reload-interval:10m}")
+    public void reloadAll() throws SQLException {
+        // Only tenants known before the query can be judged missing: one registered while it
+        // runs was committed after the query's snapshot
+        Set<String> knownBefore = Set.copyOf(byTenantId.keySet());
+        Set<String> present = new HashSet<>();
+        try (Connection conn = dataSource.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(SELECT_TENANTS)) {
+            while (rs.next()) {
+                TenantDescriptor descriptor = toDescriptor(rs);
+                register(descriptor);
+                present.add(descriptor.tenantId());
+            }
+        }
+        for (String tenantId : knownBefore) {
+            if (!present.contains(tenantId)) {
+                TenantDescriptor removed = byTenantId.remove(tenantId);
+                if (removed != null) {
+                    bySchema.remove(removed.schemaName(), removed);
+                    log.info("Tenant {} was deleted; removed from the registry", tenantId);
+                }
+            }
+        }
+    }
+
+    /**
+     * Looks up a tenant by the id clients send (case-insensitive, with or without the
+     * tenant_ prefix). Returns null for unknown tenants.
+     */
+    public TenantDescriptor find(String tenantId) {
+        if (tenantId == null) {
+            return null;
+        }
+        TenantDescriptor descriptor = byTenantId.get(tenantId);
+        if (descriptor != null) {
+            return descriptor;
+        }
+        String normalized = TenantSchema.normalizeTenantId(tenantId);
+        if (TenantSchema.DEFAULT_SCHEMA.equals(normalized)) {
+            return PUBLIC;
+        }
+        return byTenantId.get(normalized);
+    }
+
+    // Schema the tenant's queries run against; unknown and inactive tenants get public
+    public String resolveSchema(String tenantId) {
+        TenantDescriptor descriptor = find(tenantId);
+        return descriptor != null && descriptor.isActive() ? descriptor.schemaName() : TenantSchema.DEFAULT_SCHEMA;
+    }
+
+    // Schemas of all active tenants, for per-tenant background jobs
+    public List<String> activeSchemas() {
+        return byTenantId.values().stream()
+                .filter(TenantDescriptor::isActive)
+                .map(TenantDescriptor::schemaName)
+                .toList();
+    }
+
+    public TenantDescriptor findBySchema(String schemaName) {
+        if (TenantSchema.DEFAULT_SCHEMA.equals(schemaName)) {
+            return PUBLIC;
+        }
+        return bySchema.get(schemaName);
+    }
+
+    // Shard holding the schema; public and not-yet-known schemas are on the main shard
+    public String shardOf(String schemaName) {
+        TenantDescriptor descriptor = findBySchema(schemaName);
+        return descriptor != null && descriptor.shard() != null ? descriptor.shard() : ShardRouter.MAIN;
+    }
+
+    // Tenants per configured shard, including empty ones
+    public Map<String, Integer> tenantsPerShard() {
+        Map<String, Integer> counts = new HashMap<>();
+        for (String shard : shardRouter.shardIds()) {
+            counts.put(shard, 0);
+        }
+        for (TenantDescriptor descriptor : byTenantId.values()) {
+            counts.computeIfPresent(descriptor.shard(), (shard, count) -> count + 1);
+        }
+        return counts;
+    }
+
+    /**
+     * Returns the tenant, provisioning it first if it does not exist yet (from the schema
+     * pool when possible, otherwise through create_tenant_schema()). Concurrent callers for
+     * the same tenant share one attempt, and an advisory lock keeps other nodes from
+     * provisioning it twice.
+     */
+    public TenantDescriptor ensureProvisioned(String tenantId) {
+        TenantDescriptor existing = find(tenantId);
+        if (existing != null) {
+            return requireActive(existing);
+        }
+
+        String normalized = TenantSchema.normalizeTenantId(tenantId);
+        if (!TenantSchema.isValidTenantId(normalized)) {
+            throw new IllegalArgumentException("Invalid tenant id: " + tenantId);
+        }
+
+        CompletableFuture<TenantDescriptor> attempt = new CompletableFuture<>();
+        CompletableFuture<TenantDescriptor> inFlight = provisioning.putIfAbsent(normalized, attempt);
+        if (inFlight != null) {
+            try {
+                return requireActive(inFlight.join());
+            } catch (CompletionException e) {
+                throw new RuntimeException("Failed to provision tenant " + normalized, e.getCause());
+            }
+        }
+
+        try {
+            TenantDescriptor descriptor = provision(normalized);
+            register(descriptor);
+            attempt.complete(descriptor);
+            return requireActive(descriptor);
+        } catch (SQLException | RuntimeException e) {
+            attempt.completeExceptionally(e);
+            throw new RuntimeException("Failed to provision tenant " + normalized + ": " + e.getMessage(), e);
+        } finally {
+            provisioning.remove(normalized, attempt);
+        }
+    }
+
+    private TenantDescriptor provision(String tenantId) throws SQLException {
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                try (PreparedStatement lock = conn.prepareStatement("SELECT pg_advisory_xact_lock(hashtext(?))")) {
+                    lock.setString(1, "tenant:" + tenantId);
+                    lock.execute();
+                }
+
+                TenantDescriptor descriptor = select(conn, tenantId);
+                if (descriptor == null) {
+                    String shard = placeNewTenant(tenantId);
+                    String how;
+                    if (!ShardRouter.MAIN.equals(shard)) {
+                        buildOnShard(conn, tenantId, shard);
+                        how = "built on shard " + shard;
+                    } else if (schemaPool.claim(conn, tenantId, tenantId)) {
+                        // A pre-built schema is a rename away; building inline is the fallback
+                        how = "from pool";
+                    } else {
+                        try (PreparedStatement create = conn.prepareStatement("SELECT public.create_tenant_schema(?, ?)")) {
+                            create.setString(1, tenantId);
+                            create.setString(2, tenantId);
+                            create.execute();
+                        }
+                        how = "built inline";
+                    }
+                    descriptor = select(conn, tenantId);
+                    log.info("Provisioned tenant {} in schema {} ({})", tenantId, descriptor.schemaName(), how);
+                }
+                conn.commit();
+                return descriptor;
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    private String placeNewTenant(String tenantId) {
+        Map<String, Integer> open = tenantsPerShard();
+        open.keySet().removeAll(shardProperties.getClosed());
+        return placementPolicy.place(tenantId, open);
+    }
+
+    /**
+     * Builds the schema on another shard, then registers it in the catalog transaction
+     * (conn). The build commits on its own; if the catalog insert fails, the empty schema
+     * is left behind and reused by the next attempt, since the build is idempotent.
+     */
+    private void buildOnShard(Connection conn, String tenantId, String shard) throws SQLException {
+        try (Connection shardConn = shardRouter.dataSource(shard).getConnection();
+             PreparedStatement build = shardConn.prepareStatement("SELECT public.build_tenant_schema(?)")) {
+            build.setString(1, TenantSchema.schemaFor(tenantId));
+            build.execute();
+        }
+        try (PreparedStatement insert = conn.prepareStatement(
+                "INSERT INTO public.tenants (tenant_id, name, shard) VALUES (?, ?, ?)")) {
+            insert.setString(1, tenantId);
+            insert.setString(2, tenantId);
+            insert.setString(3, shard);
+            insert.executeUpdate();
+        }
+    }
+
+    private TenantDescriptor select(Connection conn, String tenantId) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(SELECT_TENANTS + " WHERE tenant_id = ?")) {
+            stmt.setString(1, tenantId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? toDescriptor(rs) : null;
+            }
+        }
+    }
+
+    private void register(TenantDescriptor descriptor) {
+        byTenantId.put(descriptor.tenantId(), descriptor);
+        bySchema.put(descriptor.schemaName(), descriptor);
+    }
+
+    private static TenantDescriptor requireActive(TenantDescriptor descriptor) {
+        if (!descriptor.isActive()) {
+            throw new IllegalStateException("Tenant " + descriptor.tenantId() + " is " + descriptor.status());
+        }
+        return descriptor;
+    }
+
+    private static TenantDescriptor toDescriptor(ResultSet rs) throws SQLException {
+        String tenantId = rs.getString("tenant_id");
+        Timestamp updatedAt = rs.getTimestamp("updated_at");
+        return new TenantDescriptor(
+                tenantId,
+                TenantSchema.schemaFor(tenantId),
+                TenantStatus.valueOf(rs.getString("status")),
+                (Integer) rs.getObject("connection_limit"),
+                (Integer) rs.getObject("connection_weight"),
+                rs.getString("shard"),
+                updatedAt != null ? updatedAt.toInstant() : Instant.EPOCH
+        );
+    }
+}
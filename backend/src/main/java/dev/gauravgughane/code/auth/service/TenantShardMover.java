@@ -0,0 +1,486 @@
+package dev.gauravgughane.code.auth.service;
+
+import dev.gauravgughane.code.auth.config.ReplicaRouter;
+import dev.gauravgughane.code.auth.config.ShardRouter;
+import dev.gauravgughane.code.auth.config.TenantSchema;
+import dev.gauravgughane.code.auth.dto.TenantDescriptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyOut;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Moves a tenant schema to another shard while the tenant stays online.
+ *
+ * 1. The schema is built empty on the target, and a trigger on the source tables starts
+ *    logging the ids of changed rows to public.shard_move_log.
+ * 2. All tables are copied from one REPEATABLE READ snapshot with COPY.
+ * 3. Logged ids are replayed in rounds (current source row upserted on the target, or
+ *    deleted there if it is gone) until the backlog is small.
+ * 4. Write freeze: the source tables are locked EXCLUSIVE (reads continue), the rest of the
+ *    log is replayed, public.tenants.shard is switched and the source schema is renamed
+ *    to &lt;schema&gt;_&lt;epoch seconds&gt;. The freeze lasts as long as this last step.
+ *
+ * Writers blocked by the freeze fail once it ends, as do nodes that still route the tenant
+ * to the old shard until their registry refresh. The renamed source schema is kept for
+ * rollback and has to be dropped by hand.
+ */
+@Service
+public class TenantShardMover {
+
+    private static final Logger log = LoggerFactory.getLogger(TenantShardMover.class);
+
+    // Tenant tables, parents before children (foreign keys)
+    private static final List<String> TABLES = List.of("users", "sessions", "audit_logs");
+
+    private static final String CAPTURE_TRIGGER = "shard_move_capture";
+
+    public record MoveResult(String tenantId, String fromShard, String toShard, long rowsCopied,
+                             int catchUpRounds, long rowsReplayed, Duration freeze, String retiredSchema) {}
+
+    private final ShardRouter shardRouter;
+    private final ReplicaRouter replicaRouter;
+    private final TenantRegistry tenantRegistry;
+    private final int batchSize;
+    private final int freezeBelow;
+    private final int maxCatchUpRounds;
+    private final Duration lockTimeout;
+    private final Timer freezeTimer;
+
+    public TenantShardMover(ShardRouter shardRouter,
+                            ReplicaRouter replicaRouter,
+                            TenantRegistry tenantRegistry,
+                            @Value("${auth.shards.move.batch-size:1000}") int batchSize,
+                            @Value("${auth.shards.move.freeze-below:1000}") int freezeBelow,
+                            @Value("${auth.shards.move.max-catch-up-rounds:50}") int maxCatchUpRounds,
+                            @Value("${auth.shards.move.lock-timeout:5s}") Duration lockTimeout,
+                            MeterRegistry meterRegistry) {
+        this.shardRouter = shardRouter;
+        this.replicaRouter = replicaRouter;
+        this.tenantRegistry = tenantRegistry;
+        this.batchSize = batchSize;
+        this.freezeBelow = freezeBelow;
+        this.maxCatchUpRounds = maxCatchUpRounds;
+        this.lockTimeout = lockTimeout;
+        this.freezeTimer = Timer.builder("tenant.shard_move.freeze")
+                .description("Time a moving tenant's writes were blocked")
+                .register(meterRegistry);
+    }
+
+    public MoveResult move(String tenantId, String targetShard) throws SQLException {
+        TenantDescriptor tenant = tenantRegistry.find(tenantId);
+        if (tenant == null || !tenant.isProvisioned() || TenantRegistry.PUBLIC.equals(tenant)) {
+            throw new IllegalArgumentException("Unknown tenant: " + tenantId);
+        }
+        if (!shardRouter.exists(targetShard)) {
+            throw new IllegalArgumentException("Unknown shard: " + targetShard);
+        }
+        String sourceShard = tenant.shard();
+        if (targetShard.equals(sourceShard)) {
+            throw new IllegalArgumentException("Tenant " + tenant.tenantId() + " is already on shard " + targetShard);
+        }
+        String schema = tenant.schemaName();
+
+        // Session lock on the catalog: one move per tenant across all nodes
+        try (Connection catalog = shardRouter.main().getConnection()) {
+            if (!advisoryLock(catalog, "pg_try_advisory_lock", tenant.tenantId())) {
+                throw new IllegalStateException("Tenant " + tenant.tenantId() + " is already being moved");
+            }
+            try (Connection source = shardRouter.dataSource(sourceShard).getConnection();
+                 Connection target = shardRouter.dataSource(targetShard).getConnection()) {
+                return move(catalog, source, target, tenant.tenantId(), schema, sourceShard, targetShard);
+            } finally {
+                advisoryLock(catalog, "pg_advisory_unlock", tenant.tenantId());
+            }
+        }
+    }
+
+    private MoveResult move(Connection catalog, Connection source, Connection target, String tenantId,
+                            String schema, String sourceShard, String targetShard) throws SQLException {
+        log.info("Moving tenant {} from shard {} to {}", tenantId, sourceShard, targetShard);
+        boolean switched = false;
+        try {
+            prepareTarget(target, schema);
+            // Named explicitly everywhere, so column order may differ between the two sides
+            Map<String, List<String>> columns = new LinkedHashMap<>();
+            for (String table : TABLES) {
+                columns.put(table, columns(target, schema, table));
+            }
+            startCapture(source, schema);
+            long copied = copyAll(source, target, schema, columns);
+            log.info("Copied {} rows of {} to shard {}", copied, schema, targetShard);
+
+            // Each round replays the backlog seen at its start; writes made meanwhile go to the next
+            int rounds = 0;
+            long replayed = 0;
+            long backlog;
+            while ((backlog = pending(source, schema)) >= freezeBelow) {
+                if (++rounds > maxCatchUpRounds) {
+                    throw new IllegalStateException("Tenant " + tenantId + " changes faster than it can be copied; "
+                            + "gave up after " + maxCatchUpRounds + " catch-up rounds");
+                }
+                source.setAutoCommit(false);
+                try {
+                    long done = 0;
+                    long n;
+                    while (done < backlog && (n = replay(source, target, schema, columns)) > 0) {
+                        done += n;
+                        source.commit();
+                    }
+                    replayed += done;
+                } catch (SQLException | RuntimeException e) {
+                    // Keep the consumed log entries: the target may not have them
+                    source.rollback();
+                    throw e;
+                } finally {
+                    source.setAutoCommit(true);
+                }
+            }
+
+            // Write freeze
+            String retired = retiredName(schema);
+            long frozenAt;
+            source.setAutoCommit(false);
+            try {
+                try (Statement stmt = source.createStatement()) {
+                    stmt.execute("SET LOCAL lock_timeout = " + lockTimeout.toMillis());
+                    stmt.execute("LOCK TABLE " + qualifiedTables(schema) + " IN EXCLUSIVE MODE");
+                }
+                frozenAt = System.nanoTime();
+                long n;
+                while ((n = replay(source, target, schema, columns)) > 0) {
+                    replayed += n;
+                }
+                setUserTriggers(target, schema, "ENABLE");
+
+                try (PreparedStatement stmt = catalog.prepareStatement(
+                        "UPDATE public.tenants SET shard = ? WHERE tenant_id = ? AND shard = ?")) {
+                    stmt.setString(1, targetShard);
+                    stmt.setString(2, tenantId);
+                    stmt.setString(3, sourceShard);
+                    if (stmt.executeUpdate() != 1) {
+                        throw new IllegalStateException("Tenant " + tenantId + " is no longer on shard " + sourceShard);
+                    }
+                }
+                switched = true;
+
+                try (Statement stmt = source.createStatement()) {
+                    dropCapture(stmt, schema);
+                    stmt.execute("ALTER SCHEMA " + TenantSchema.quote(schema) + " RENAME TO " + TenantSchema.quote(retired));
+                }
+                source.commit();
+            } catch (SQLException | RuntimeException e) {
+                source.rollback();
+                throw e;
+            } finally {
+                source.setAutoCommit(true);
+            }
+            long frozen = System.nanoTime() - frozenAt;
+            freezeTimer.record(frozen, TimeUnit.NANOSECONDS);
+            // The target's replicas may not have replayed the copy yet
+            replicaRouter.pin(schema);
+            tenantRegistry.refresh();
+
+            Duration freeze = Duration.ofNanos(frozen);
+            log.info("Moved tenant {} to shard {}: writes frozen for {} ms, old schema kept as {} on shard {}",
+                    tenantId, targetShard, freeze.toMillis(), retired, sourceShard);
+            return new MoveResult(tenantId, sourceShard, targetShard, copied, rounds, replayed, freeze, retired);
+        } catch (SQLException | RuntimeException e) {
+            if (switched) {
+                // The catalog already points at the target, which holds every committed write
+                log.error("Tenant {} switched to shard {} but the old schema on {} could not be retired; "
+                        + "drop or rename it before other nodes refresh", tenantId, targetShard, sourceShard, e);
+                tenantRegistry.refresh();
+            } else {
+                abort(source, target, schema);
+            }
+            throw e;
+        }
+    }
+
+    // Empty schema on the target; leftovers of an aborted move are dropped first
+    private void prepareTarget(Connection target, String schema) throws SQLException {
+        try (Statement stmt = target.createStatement();
+             PreparedStatement build = target.prepareStatement("SELECT public.build_tenant_schema(?)")) {
+            stmt.execute("DROP SCHEMA IF EXISTS " + TenantSchema.quote(schema) + " CASCADE");
+            build.setString(1, schema);
+            build.execute();
+        }
+        // Copied rows keep their updated_at
+        setUserTriggers(target, schema, "DISABLE");
+    }
+
+    private static void startCapture(Connection source, String schema) throws SQLException {
+        source.setAutoCommit(false);
+        try (Statement stmt = source.createStatement();
+             PreparedStatement clear = source.prepareStatement("DELETE FROM public.shard_move_log WHERE schema_name = ?")) {
+            clear.setString(1, schema);
+            clear.executeUpdate();
+            dropCapture(stmt, schema);
+            for (String table : TABLES) {
+                // Waits for in-flight writers, so every later change is captured
+                stmt.execute("CREATE TRIGGER " + CAPTURE_TRIGGER + " AFTER INSERT OR UPDATE OR DELETE ON "
+                        + qualified(schema, table) + " FOR EACH ROW EXECUTE FUNCTION public.capture_shard_move()");
+            }
+            source.commit();
+        } catch (SQLException | RuntimeException e) {
+            source.rollback();
+            throw e;
+        } finally {
+            source.setAutoCommit(true);
+        }
+    }
+
+    private static long copyAll(Connection source, Connection target, String schema,
+                                Map<String, List<String>> columns) throws SQLException {
+        source.setAutoCommit(false);
+        source.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+        target.setAutoCommit(false);
+        try {
+            long rows = 0;
+            for (String table : TABLES) {
+                String list = columnList(columns.get(table));
+                rows += copy(source, "COPY " + qualified(schema, table) + " " + list + " TO STDOUT (FORMAT binary)",
+                        target, "COPY " + qualified(schema, table) + " " + list + " FROM STDIN (FORMAT binary)");
+            }
+            target.commit();
+            source.commit();
+            return rows;
+        } catch (SQLException | RuntimeException e) {
+            target.rollback();
+            source.rollback();
+            throw e;
+        } finally {
+            source.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+            source.setAutoCommit(true);
+            target.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Replays one batch of the change log inside source's open transaction; the target
+     * side commits here. Returns the number of log entries consumed (0 when it is empty).
+     * Deleted log entries only go away when the caller commits source, so a failure
+     * leaves them to be replayed again, which is harmless.
+     */
+    private long replay(Connection source, Connection target, String schema,
+                        Map<String, List<String>> columns) throws SQLException {
+        Map<String, Set<UUID>> changed = new LinkedHashMap<>();
+        long entries = 0;
+        try (PreparedStatement stmt = source.prepareStatement(
+                "DELETE FROM public.shard_move_log WHERE seq IN (SELECT seq FROM public.shard_move_log "
+                        + "WHERE schema_name = ? ORDER BY seq LIMIT ?) RETURNING table_name, row_id")) {
+            stmt.setString(1, schema);
+            stmt.setInt(2, batchSize);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    changed.computeIfAbsent(rs.getString(1), t -> new LinkedHashSet<>()).add(rs.getObject(2, UUID.class));
+                    entries++;
+                }
+            }
+        }
+        if (entries == 0) {
+            return 0;
+        }
+
+        target.setAutoCommit(false);
+        try {
+            // Stage the current source rows first, then deletes child-first, upserts parent-first
+            for (String table : TABLES) {
+                Set<UUID> ids = changed.get(table);
+                if (ids == null) {
+                    continue;
+                }
+                try (Statement stmt = target.createStatement()) {
+                    stmt.execute("CREATE TEMP TABLE " + stage(table) + " (LIKE " + qualified(schema, table)
+                            + ") ON COMMIT DROP");
+                }
+                String list = columnList(columns.get(table));
+                copy(source, "COPY (SELECT " + list.substring(1, list.length() - 1) + " FROM " + qualified(schema, table)
+                                + " WHERE id = ANY('" + uuidArray(ids) + "'::uuid[])) TO STDOUT (FORMAT binary)",
+                        target, "COPY " + stage(table) + " " + list + " FROM STDIN (FORMAT binary)");
+            }
+            for (String table : TABLES.reversed()) {
+                Set<UUID> ids = changed.get(table);
+                if (ids == null) {
+                    continue;
+                }
+                try (Statement stmt = target.createStatement()) {
+                    stmt.executeUpdate("DELETE FROM " + qualified(schema, table) + " WHERE id = ANY('" + uuidArray(ids)
+                            + "'::uuid[]) AND id NOT IN (SELECT id FROM " + stage(table) + ")");
+                }
+            }
+            for (String table : TABLES) {
+                if (!changed.containsKey(table)) {
+                    continue;
+                }
+                String updates = columns.get(table).stream()
+                        .filter(c -> !c.equals("id"))
+                        .map(c -> quoteIdent(c) + " = EXCLUDED." + quoteIdent(c))
+                        .collect(Collectors.joining(", "));
+                String list = columnList(columns.get(table));
+                try (Statement stmt = target.createStatement()) {
+                    stmt.executeUpdate("INSERT INTO " + qualified(schema, table) + " " + list
+                            + " SELECT " + list.substring(1, list.length() - 1) + " FROM " + stage(table)
+                            + " ON CONFLICT (id) DO UPDATE SET " + updates);
+                }
+            }
+            target.commit();
+        } catch (SQLException | RuntimeException e) {
+            target.rollback();
+            throw e;
+        } finally {
+            target.setAutoCommit(true);
+        }
+        return entries;
+    }
+
+    private void abort(Connection source, Connection target, String schema) {
+        try {
+            if (!source.getAutoCommit()) {
+                source.rollback();
+                source.setAutoCommit(true);
+            }
+            try (Statement stmt = source.createStatement();
+                 PreparedStatement clear = source.prepareStatement("DELETE FROM public.shard_move_log WHERE schema_name = ?")) {
+                dropCapture(stmt, schema);
+                clear.setString(1, schema);
+                clear.executeUpdate();
+            }
+            try (Statement stmt = target.createStatement()) {
+                stmt.execute("DROP SCHEMA IF EXISTS " + TenantSchema.quote(schema) + " CASCADE");
+            }
+        } catch (SQLException | RuntimeException e) {
+            log.warn("Cleanup after failed move of {} incomplete: {}", schema, e.getMessage());
+        }
+    }
+
+    private static long pending(Connection source, String schema) throws SQLException {
+        try (PreparedStatement stmt = source.prepareStatement(
+                "SELECT count(*) FROM public.shard_move_log WHERE schema_name = ?")) {
+            stmt.setString(1, schema);
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        }
+    }
+
+    private static long copy(Connection from, String copyOut, Connection to, String copyIn) throws SQLException {
+        CopyOut out = from.unwrap(PGConnection.class).getCopyAPI().copyOut(copyOut);
+        CopyIn in;
+        try {
+            in = to.unwrap(PGConnection.class).getCopyAPI().copyIn(copyIn);
+        } catch (SQLException e) {
+            out.cancelCopy();
+            throw e;
+        }
+        try {
+            byte[] chunk;
+            while ((chunk = out.readFromCopy()) != null) {
+                in.writeToCopy(chunk, 0, chunk.length);
+            }
+            return in.endCopy();
+        } catch (SQLException e) {
+            if (in.isActive()) {
+                in.cancelCopy();
+            }
+            if (out.isActive()) {
+                out.cancelCopy();
+            }
+            throw e;
+        }
+    }
+
+    private static List<String> columns(Connection conn, String schema, String table) throws SQLException {
+        List<String> columns = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT column_name FROM information_schema.columns "
+                + "WHERE table_schema = ? AND table_name = ? ORDER BY ordinal_position")) {
+            stmt.setString(1, schema);
+            stmt.setString(2, table);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    columns.add(rs.getString(1));
+                }
+            }
+        }
+        return columns;
+    }
+
+    private static void setUserTriggers(Connection conn, String schema, String action) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            for (String table : TABLES) {
+                stmt.execute("ALTER TABLE " + qualified(schema, table) + " " + action + " TRIGGER USER");
+            }
+        }
+    }
+
+    private static void dropCapture(Statement stmt, String schema) throws SQLException {
+        for (String table : TABLES) {
+            stmt.execute("DROP TRIGGER IF EXISTS " + CAPTURE_TRIGGER + " ON " + qualified(schema, table));
+        }
+    }
+
+    private static boolean advisoryLock(Connection conn, String function, String tenantId) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT " + function + "(hashtext(?))")) {
+            stmt.setString(1, "tenant-move:" + tenantId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                return rs.getBoolean(1);
+            }
+        }
+    }
+
+    // Schema names are at most 63 bytes; the suffix is 11
+    private static String retiredName(String schema) {
+        String base = schema.length() > 52 ? schema.substring(0, 52) : schema;
+        return base + "_" + Instant.now().getEpochSecond();
+    }
+
+    private static String qualifiedTables(String schema) {
+        return TABLES.stream().map(t -> qualified(schema, t)).collect(Collectors.joining(", "));
+    }
+
+    private static String qualified(String schema, String table) {
+        return TenantSchema.quote(schema) + "." + table;
+    }
+
+    private static String stage(String table) {
+        return "shard_move_" + table;
+    }
+
+    private static String columnList(List<String> columns) {
+        return columns.stream().map(TenantShardMover::quoteIdent).collect(Collectors.joining(", ", "(", ")"));
+    }
+
+    private static String quoteIdent(String identifier) {
+        return "\"" + identifier.replace("\"", "\"\"") + "\"";
+    }
+
+    // UUID.toString() is hex and dashes only, so the literal needs no escaping
+    private static String uuidArray(Set<UUID> ids) {
+        return ids.stream().map(UUID::toString).collect(Collectors.joining(",", "{", "}"));
+    }
+}
@@ -0,0 +1,264 @@
+package dev.gauravgughane.code.auth.service;
+
+import dev.gauravgughane.code.auth.dto.TokenClaims;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Revocation state that every token verification is checked against, kept in memory.
+ *
+ * Revoked token ids (jti) sit in a set split into shards, each id kept until its token
+ * would have expired anyway. A Bloom filter over all of them answers the common case -
+ * a token nobody revoked - from a few bit reads, without locking or allocating; only its
+ * positives look into the set. A Bloom filter cannot forget, so pruning rebuilds it from
+ * the ids that are left.
+ *
+ * Revoking every token of a subject or of a whole tenant is a single not-before watermark:
+ * tokens issued before it are rejected. Watermarks are dropped once every token they can
+ * match has expired.
+ *
+ * Writes are rare and serialized; TokenRevocationService persists them and feeds in the
+ * revocations made on other nodes.
+ */
+@Component
+public class TokenDenylist {
+
+    public enum Reason { TOKEN, SUBJECT, TENANT }
+
+    // Epoch seconds; tokens with iat < notBefore are revoked
+    private record Watermark(long notBefore, long expiresAt) {
+
+        Watermark merge(Watermark other) {
+            return new Watermark(Math.max(notBefore, other.notBefore), Math.max(expiresAt, other.expiresAt));
+        }
+    }
+
+    // jti -> token expiry (epoch seconds)
+    private final Map<UUID, Long>[] shards;
+    private final int expectedEntries;
+    private final double falsePositiveRate;
+    private volatile BloomFilter filter;
+
+    private final Map<String, Watermark> tenantWatermarks = new ConcurrentHashMap<>();
+    // tenantId -> subject -> watermark; nested so lookups need no composite key
+    private final Map<String, Map<String, Watermark>> subjectWatermarks = new ConcurrentHashMap<>();
+
+    private final Object writeLock = new Object();
+
+    private final Counter filterPositives;
+    private final Counter falsePositives;
+
+    @SuppressWarnings("unchecked")
+    public TokenDenylist(@Value("${auth.revocation.shards:16}") int shardCount,
+                         @Value("${auth.revocation.bloom.expected-entries:100000}") int expectedEntries,
+                         @Value("${auth.revocation.bloom.false-positive-rate:0.01}") double falsePositiveRate,
+                         MeterRegistry meterRegistry) {
+        this.shards = new Map[Math.max(1, shardCount)];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new ConcurrentHashMap<>();
+        }
+        this.expectedEntries = Math.max(1, expectedEntries);
+        this.falsePositiveRate = falsePositiveRate;
+        this.filter = new BloomFilter(this.expectedEntries, falsePositiveRate);
+
+        this.filterPositives = Counter.builder("auth.revocation.filter.positives")
+                .description("Token ids the Bloom filter passed on to the revoked set")
+                .register(meterRegistry);
+        this.falsePositives = Counter.builder("auth.revocation.filter.false-positives")
+                .description("Filter positives that were not in the revoked set")
+                .register(meterRegistry);
+        Gauge.builder("auth.revocation.tokens", this, TokenDenylist::revokedTokens)
+                .description("Revoked token ids held until their tokens expire")
+                .register(meterRegistry);
+        Gauge.builder("auth.revocation.watermarks", subjectWatermarks, m -> m.values().stream().mapToInt(Map::size).sum())
+                .tag("scope", "subject")
+                .description("Active not-before watermarks")
+                .register(meterRegistry);
+        Gauge.builder("auth.revocation.watermarks", tenantWatermarks, Map::size)
+                .tag("scope", "tenant")
+                .description("Active not-before watermarks")
+                .register(meterRegistry);
+        Gauge.builder("auth.revocation.filter.bytes", this, d -> d.filter.sizeInBytes())
+                .description("Memory held by the Bloom filter bit array")
+                .register(meterRegistry);
+    }
+
+    // Null when the token is not revoked; allocation-free unless a watermark or the filter matches
+    public Reason check(TokenClaims claims) {
+        long issuedAt = claims.issuedAt() != null ? claims.issuedAt().getEpochSecond() : Long.MIN_VALUE;
+        String tenantId = claims.tenantId();
+        if (tenantId != null) {
+            if (!tenantWatermarks.isEmpty()) {
+                Watermark watermark = tenantWatermarks.get(tenantId);
+                if (watermark != null && issuedAt < watermark.notBefore()) {
+                    return Reason.TENANT;
+                }
+            }
+            if (!subjectWatermarks.isEmpty() && claims.subject() != null) {
+                Map<String, Watermark> subjects = subjectWatermarks.get(tenantId);
+                Watermark watermark = subjects != null ? subjects.get(claims.subject()) : null;
+                if (watermark != null && issuedAt < watermark.notBefore()) {
+                    return Reason.SUBJECT;
+                }
+            }
+        }
+
+        UUID tokenId = claims.tokenId();
+        if (tokenId == null || !filter.mightContain(tokenId)) {
+            return null;
+        }
+        filterPositives.increment();
+        if (shardFor(tokenId).containsKey(tokenId)) {
+            return Reason.TOKEN;
+        }
+        falsePositives.increment();
+        return null;
+    }
+
+    public void revokeToken(UUID tokenId, long expiresAt) {
+        synchronized (writeLock) {
+            shardFor(tokenId).merge(tokenId, expiresAt, Math::max);
+            if (revokedTokens() > filter.capacity()) {
+                rebuildFilter();
+            } else {
+                filter.put(tokenId);
+            }
+        }
+    }
+
+    public void revokeSubject(String tenantId, String subject, long notBefore, long expiresAt) {
+        synchronized (writeLock) {
+            subjectWatermarks.computeIfAbsent(tenantId, t -> new ConcurrentHashMap<>())
+                    .merge(subject, new Watermark(notBefore, expiresAt), Watermark::merge);
+        }
+    }
+
+    public void revokeTenant(String tenantId, long notBefore, long expiresAt) {
+        synchronized (writeLock) {
+            tenantWatermarks.merge(tenantId, new Watermark(notBefore, expiresAt), Watermark::merge);
+        }
+    }
+
+    // Drops everything that can no longer match an unexpired token; returns the number removed
+    public int prune(long now) {
+        synchronized (writeLock) {
+            int removedTokens = 0;
+            for (Map<UUID, Long> shard : shards) {
+                int before = shard.size();
+                shard.values().removeIf(expiresAt -> expiresAt <= now);
+                removedTokens += before - shard.size();
+            }
+            int removed = removedTokens;
+            int before = tenantWatermarks.size();
+            tenantWatermarks.values().removeIf(w -> w.expiresAt() <= now);
+            removed += before - tenantWatermarks.size();
+            for (Map<String, Watermark> subjects : subjectWatermarks.values()) {
+                before = subjects.size();
+                subjects.values().removeIf(w -> w.expiresAt() <= now);
+                removed += before - subjects.size();
+            }
+            subjectWatermarks.values().removeIf(Map::isEmpty);
+
+            if (removedTokens > 0) {
+                rebuildFilter();
+            }
+            return removed;
+        }
+    }
+
+    public int revokedTokens() {
+        int count = 0;
+        for (Map<UUID, Long> shard : shards) {
+            count += shard.size();
+        }
+        return count;
+    }
+
+    public int watermarks() {
+        return tenantWatermarks.size() + subjectWatermarks.values().stream().mapToInt(Map::size).sum();
+    }
+
+    public long filterBytes() {
+        return filter.sizeInBytes();
+    }
+
+    // Sized for twice the current entries (at least expected-entries), so it is not rebuilt on every add
+    private void rebuildFilter() {
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedEntries, revokedTokens() * 2), falsePositiveRate);
+        for (Map<UUID, Long> shard : shards) {
+            shard.keySet().forEach(rebuilt::put);
+        }
+        filter = rebuilt;
+    }
+
+    private Map<UUID, Long> shardFor(UUID tokenId) {
+        return shards[(int) Long.remainderUnsigned(mix(tokenId.getMostSignificantBits()), shards.length)];
+    }
+
+    // Stafford variant 13 of the SplitMix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Fixed-size Bloom filter over UUIDs with double hashing. Bits are only ever set, by one
+     * writer at a time (under writeLock); readers see them through the atomic array.
+     */
+    private static final class BloomFilter {
+
+        private final AtomicLongArray words;
+        private final long bits;
+        private final int hashes;
+        private final int capacity;
+
+        BloomFilter(int capacity, double falsePositiveRate) {
+            double ln2 = Math.log(2);
+            long optimalBits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (ln2 * ln2));
+            int wordCount = (int) Math.max(1, (optimalBits + 63) / 64);
+            this.words = new AtomicLongArray(wordCount);
+            this.bits = wordCount * 64L;
+            this.hashes = Math.max(1, (int) Math.round((double) bits / capacity * ln2));
+            this.capacity = capacity;
+        }
+
+        void put(UUID id) {
+            long h1 = mix(id.getMostSignificantBits());
+            long h2 = mix(id.getLeastSignificantBits()) | 1;
+            for (int i = 0; i < hashes; i++) {
+                long bit = Long.remainderUnsigned(h1 + i * h2, bits);
+                int word = (int) (bit >>> 6);
+                words.set(word, words.get(word) | (1L << bit));
+            }
+        }
+
+        boolean mightContain(UUID id) {
+            long h1 = mix(id.getMostSignificantBits());
+            long h2 = mix(id.getLeastSignificantBits()) | 1;
+            for (int i = 0; i < hashes; i++) {
+                long bit = Long.remainderUnsigned(h1 + i * h2, bits);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        int capacity() {
+            return capacity;
+        }
+
+        long sizeInBytes() {
+            return words.length() * 8L;
+        }
+    }
+}
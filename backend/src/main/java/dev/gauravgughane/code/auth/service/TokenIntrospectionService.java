@@ -0,0 +1,202 @@
+package dev.gauravgughane.code.auth.service;
+
+import dev.gauravgughane.code.auth.dto.IntrospectionResult;
+import dev.gauravgughane.code.auth.dto.TokenClaims;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Verifies batches of access tokens for other services. A batch is cut into chunks; the
+ * request thread verifies the first chunk itself and the rest run on a small CPU-sized
+ * pool. When that pool's queue is full, the request thread runs the chunk instead, so a
+ * busy node answers more slowly rather than refusing.
+ *
+ * The binary encoding (BINARY_MEDIA_TYPE, all integers big-endian):
+ *   request  - per token: u16 length, then the token's ASCII bytes
+ *   response - u32 count, then per token: u8 active (0/1) and, if active, u32 ttl seconds
+ *              followed by subject, tenant id and role, each as u16 length + UTF-8 bytes
+ */
+@Service
+public class TokenIntrospectionService {
+
+    public static final String BINARY_MEDIA_TYPE = "application/vnd.auth.introspection";
+
+    private final JwtService jwtService;
+    private final int maxTokens;
+    private final int maxTokenLength;
+    private final int chunkSize;
+    private final ThreadPoolExecutor executor;
+
+    private final Counter active;
+    private final Counter inactive;
+    private final DistributionSummary batchSize;
+
+    public TokenIntrospectionService(JwtService jwtService,
+                                     @Value("${auth.introspect.max-tokens:100}") int maxTokens,
+                                     @Value("${auth.introspect.max-token-length:8192}") int maxTokenLength,
+                                     @Value("${auth.introspect.chunk-size:32}") int chunkSize,
+                                     @Value("${auth.introspect.threads:0}") int threads,
+                                     @Value("${auth.introspect.queue-capacity:256}") int queueCapacity,
+                                     MeterRegistry meterRegistry) {
+        this.jwtService = jwtService;
+        this.maxTokens = maxTokens;
+        this.maxTokenLength = maxTokenLength;
+        this.chunkSize = Math.max(1, chunkSize);
+
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "token-introspect-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+
+        this.active = Counter.builder("auth.introspect.tokens")
+                .description("Tokens checked through batch introspection")
+                .tag("result", "active")
+                .register(meterRegistry);
+        this.inactive = Counter.builder("auth.introspect.tokens")
+                .description("Tokens checked through batch introspection")
+                .tag("result", "inactive")
+                .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("auth.introspect.batch.size")
+                .description("Tokens per introspection request")
+                .register(meterRegistry);
+    }
+
+    // Results are in the order of the tokens; throws IllegalArgumentException for oversized batches
+    public List<IntrospectionResult> introspect(List<String> tokens) {
+        if (tokens.size() > maxTokens) {
+            throw new IllegalArgumentException("At most " + maxTokens + " tokens per request");
+        }
+        batchSize.record(tokens.size());
+        IntrospectionResult[] results = new IntrospectionResult[tokens.size()];
+
+        List<Future<?>> chunks = new ArrayList<>();
+        for (int from = chunkSize; from < tokens.size(); from += chunkSize) {
+            int start = from;
+            int end = Math.min(from + chunkSize, tokens.size());
+            chunks.add(executor.submit(() -> verifyRange(tokens, results, start, end)));
+        }
+        verifyRange(tokens, results, 0, Math.min(chunkSize, tokens.size()));
+
+        for (Future<?> chunk : chunks) {
+            try {
+                chunk.get();
+            } catch (InterruptedException e) {
+                chunks.forEach(f -> f.cancel(true));
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while introspecting tokens", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Token introspection failed", e.getCause());
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    private void verifyRange(List<String> tokens, IntrospectionResult[] results, int start, int end) {
+        for (int i = start; i < end; i++) {
+            results[i] = introspect(tokens.get(i));
+        }
+    }
+
+    private IntrospectionResult introspect(String token) {
+        if (token == null || token.isBlank() || token.length() > maxTokenLength) {
+            inactive.increment();
+            return IntrospectionResult.INACTIVE;
+        }
+        try {
+            TokenClaims claims = jwtService.verify(token);
+            long ttl = Math.max(0, Duration.between(Instant.now(), claims.expiresAt()).toSeconds());
+            active.increment();
+            return new IntrospectionResult(true, claims.subject(), claims.tenantId(), claims.role(), ttl);
+        } catch (JwtException | IllegalArgumentException e) {
+            inactive.increment();
+            return IntrospectionResult.INACTIVE;
+        }
+    }
+
+    // Throws IllegalArgumentException for a truncated body, an oversized token or too many tokens
+    public List<String> decodeTokens(byte[] body) {
+        ByteBuffer in = ByteBuffer.wrap(body);
+        List<String> tokens = new ArrayList<>();
+        try {
+            while (in.hasRemaining()) {
+                if (tokens.size() == maxTokens) {
+                    throw new IllegalArgumentException("At most " + maxTokens + " tokens per request");
+                }
+                int length = Short.toUnsignedInt(in.getShort());
+                if (length > maxTokenLength) {
+                    throw new IllegalArgumentException("Token longer than " + maxTokenLength + " bytes");
+                }
+                byte[] token = new byte[length];
+                in.get(token);
+                tokens.add(new String(token, StandardCharsets.US_ASCII));
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated token list");
+        }
+        return tokens;
+    }
+
+    public byte[] encode(List<IntrospectionResult> results) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(4 + results.size() * 64);
+        writeInt(out, results.size());
+        for (IntrospectionResult result : results) {
+            if (!result.active()) {
+                out.write(0);
+                continue;
+            }
+            out.write(1);
+            writeInt(out, (int) Math.min(result.ttl(), Integer.MAX_VALUE));
+            writeString(out, result.sub());
+            writeString(out, result.tenantId());
+            writeString(out, result.role() != null ? result.role().name() : "");
+        }
+        return out.toByteArray();
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, int value) {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        byte[] bytes = (value != null ? value : "").getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, 0xFFFF);
+        out.write(length >>> 8);
+        out.write(length);
+        out.write(bytes, 0, length);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,173 @@
+package dev.gauravgughane.code.auth.service;
+
+import dev.gauravgughane.code.auth.dto.TokenClaims;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+/**
+ * Records revocations in public.token_revocations and keeps this node's TokenDenylist in
+ * step with the table: live rows are loaded at startup, rows added by other nodes are
+ * polled every refresh-interval, and expired rows are pruned. A revocation applies on the
+ * node that made it at once and on the others after their next poll.
+ */
+@Service
+public class TokenRevocationService {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    // Polls look back this far, so rows that committed after a later row are not missed;
+    // applying a row twice changes nothing
+    private static final Duration POLL_OVERLAP = Duration.ofSeconds(30);
+
+    private final DataSource dataSource;
+    private final TokenDenylist denylist;
+    private final Duration accessTokenTtl;
+    private final MeterRegistry meterRegistry;
+
+    // Newest created_at seen (database clock)
+    private volatile Instant polledUpTo = Instant.EPOCH;
+
+    public TokenRevocationService(DataSource dataSource,
+                                  TokenDenylist denylist,
+                                  @Value("${auth.jwt.access-token-ttl:15m}") Duration accessTokenTtl,
+                                  MeterRegistry meterRegistry) {
+        this.dataSource = dataSource;
+        this.denylist = denylist;
+        this.accessTokenTtl = accessTokenTtl;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void load() throws SQLException {
+        int rows = poll(Instant.EPOCH);
+        log.info("Loaded {} token revocations", rows);
+    }
+
+    @Scheduled(fixedDelayString = "${auth.revocation.refresh-interval:5s}",
+            initialDelayString = "${auth.revocation.refresh-interval:5s}")
+    public void refresh() {
+        try {
+            poll(polledUpTo.minus(POLL_OVERLAP));
+        } catch (SQLException e) {
+            // Keep checking against what we have
+            log.warn("Token revocation refresh failed: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${auth.revocation.prune-interval:1m}",
+            initialDelayString = "${auth.revocation.prune-interval:1m}")
+    public void prune() {
+        denylist.prune(Instant.now().getEpochSecond());
+        try (Connection conn = dataSource.getConnection();
+             Statement stmt = conn.createStatement()) {
+            int deleted = stmt.executeUpdate("DELETE FROM public.token_revocations WHERE expires_at <= now()");
+            if (deleted > 0) {
+                log.debug("Pruned {} expired token revocations", deleted);
+            }
+        } catch (SQLException e) {
+            log.warn("Token revocation prune failed: {}", e.getMessage());
+        }
+    }
+
+    // False for tokens without an id (issued before ids were added); revoke their subject instead
+    public boolean revokeToken(TokenClaims claims) throws SQLException {
+        if (claims.tokenId() == null) {
+            return false;
+        }
+        insert(TokenDenylist.Reason.TOKEN, claims.tenantId(), claims.subject(), claims.tokenId(), null, claims.expiresAt());
+        denylist.revokeToken(claims.tokenId(), claims.expiresAt().getEpochSecond());
+        return true;
+    }
+
+    // Every token of the subject issued so far; returns the watermark
+    public Instant revokeSubject(String tenantId, String subject) throws SQLException {
+        Instant notBefore = notBefore();
+        Instant expiresAt = notBefore.plus(accessTokenTtl);
+        insert(TokenDenylist.Reason.SUBJECT, tenantId, subject, null, notBefore, expiresAt);
+        denylist.revokeSubject(tenantId, subject, notBefore.getEpochSecond(), expiresAt.getEpochSecond());
+        return notBefore;
+    }
+
+    // Every token of the tenant issued so far; returns the watermark
+    public Instant revokeTenant(String tenantId) throws SQLException {
+        Instant notBefore = notBefore();
+        Instant expiresAt = notBefore.plus(accessTokenTtl);
+        insert(TokenDenylist.Reason.TENANT, tenantId, null, null, notBefore, expiresAt);
+        denylist.revokeTenant(tenantId, notBefore.getEpochSecond(), expiresAt.getEpochSecond());
+        return notBefore;
+    }
+
+    // iat has whole seconds, so the current second is included: a token issued just before
+    // the call cannot share the watermark's second and slip through
+    private static Instant notBefore() {
+        return Instant.now().truncatedTo(ChronoUnit.SECONDS).plusSeconds(1);
+    }
+
+    private void insert(TokenDenylist.Reason kind, String tenantId, String subject, UUID tokenId,
+                        Instant notBefore, Instant expiresAt) throws SQLException {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(
+                     "INSERT INTO public.token_revocations (kind, tenant_id, subject, jti, not_before, expires_at) "
+                             + "VALUES (?, ?, ?, ?, ?, ?)")) {
+            stmt.setString(1, kind.name());
+            stmt.setString(2, tenantId);
+            stmt.setString(3, subject);
+            stmt.setObject(4, tokenId);
+            stmt.setTimestamp(5, notBefore != null ? Timestamp.from(notBefore) : null);
+            stmt.setTimestamp(6, Timestamp.from(expiresAt));
+            stmt.executeUpdate();
+        }
+        meterRegistry.counter("auth.revocation.revoked", "scope", kind.name().toLowerCase()).increment();
+    }
+
+    private int poll(Instant since) throws SQLException {
+        int rows = 0;
+        Instant newest = polledUpTo;
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(
+                     "SELECT kind, tenant_id, subject, jti, not_before, expires_at, created_at "
+                             + "FROM public.token_revocations WHERE created_at > ? AND expires_at > now() ORDER BY created_at")) {
+            stmt.setTimestamp(1, Timestamp.from(since));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    apply(rs);
+                    Instant createdAt = rs.getTimestamp("created_at").toInstant();
+                    if (createdAt.isAfter(newest)) {
+                        newest = createdAt;
+                    }
+                    rows++;
+                }
+            }
+        }
+        polledUpTo = newest;
+        return rows;
+    }
+
+    private void apply(ResultSet rs) throws SQLException {
+        long expiresAt = rs.getTimestamp("expires_at").toInstant().getEpochSecond();
+        Timestamp notBefore = rs.getTimestamp("not_before");
+        switch (TokenDenylist.Reason.valueOf(rs.getString("kind"))) {
+            case TOKEN -> denylist.revokeToken(rs.getObject("jti", UUID.class), expiresAt);
+            case SUBJECT -> denylist.revokeSubject(rs.getString("tenant_id"), rs.getString("subject"),
+                    notBefore.toInstant().getEpochSecond(), expiresAt);
+            case TENANT -> denylist.revokeTenant(rs.getString("tenant_id"), notBefore.toInstant().getEpochSecond(), expiresAt);
+        }
+    }
+}
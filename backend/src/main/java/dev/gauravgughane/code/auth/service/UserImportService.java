@@ -0,0 +1,426 @@
+package dev.gauravgughane.code.auth.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.gauravgughane.code.auth.config.TenantConnectionProvider;
+import dev.gauravgughane.code.auth.config.TenantContext;
+import dev.gauravgughane.code.auth.config.TenantSchema;
+import dev.gauravgughane.code.auth.entity.UserRole;
+import dev.gauravgughane.code.auth.exception.ServiceBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Bulk user import for the current tenant from CSV (name,email,password[,role]) or NDJSON.
+ *
+ * Input is read in chunks. For each chunk, emails are checked against the tenant in one
+ * query, passwords are hashed in parallel on a pool separate from the login hashing
+ * pool, and rows are inserted with one JDBC batch in their own transaction. Bad rows are
+ * reported back and skipped; they never fail the rest of the import.
+ */
+@Service
+public class UserImportService {
+
+    public enum Format { CSV, NDJSON }
+
+    private final TenantConnectionProvider connectionProvider;
+    private final PasswordEncoder passwordEncoder;
+    private final UserLookupCache userLookupCache;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+    private final int maxRows;
+    private final ExecutorService hashExecutor;
+    private final Semaphore concurrentImports;
+
+    private final Counter importedRows;
+    private final Counter rejectedRows;
+    private final Timer chunkTimer;
+
+    public UserImportService(TenantConnectionProvider connectionProvider,
+                             PasswordEncoder passwordEncoder,
+                             UserLookupCache userLookupCache,
+                             ObjectMapper objectMapper,
+                             @Value("${auth.import.chunk-size:1000}") int chunkSize,
+                             @Value("${auth.import.max-rows:200000}") int maxRows,
+                             @Value("${auth.import.hash-threads:0}") int hashThreads,
+                             @Value("${auth.import.max-concurrent:2}") int maxConcurrent,
+                             MeterRegistry meterRegistry) {
+        this.connectionProvider = connectionProvider;
+        this.passwordEncoder = passwordEncoder;
+        this.userLookupCache = userLookupCache;
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+        this.maxRows = maxRows;
+        this.concurrentImports = new Semaphore(maxConcurrent);
+
+        int poolSize = hashThreads > 0 ? hashThreads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.hashExecutor = Executors.newFixedThreadPool(poolSize, runnable -> {
+            Thread thread = new Thread(runnable, "import-hash-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            // Below normal so interactive logins on the main hashing pool win the CPU
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        });
+
+        this.importedRows = Counter.builder("auth.import.rows")
+                .description("Rows processed by bulk user import")
+                .tag("result", "imported")
+                .register(meterRegistry);
+        this.rejectedRows = Counter.builder("auth.import.rows")
+                .description("Rows processed by bulk user import")
+                .tag("result", "rejected")
+                .register(meterRegistry);
+        this.chunkTimer = Timer.builder("auth.import.chunk")
+                .description("Time to check, hash and insert one import chunk")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Imports users from the reader into the current tenant. Every progress, error and
+     * summary record is handed to the listener as it happens, so callers can stream it.
+     * Rows asking for a role above callerRole are rejected.
+     */
+    public Map<String, Object> importUsers(BufferedReader reader, Format format, UserRole callerRole,
+                                           Consumer<Map<String, Object>> listener) throws IOException {
+        String schema = TenantContext.getSchema();
+        if (TenantSchema.DEFAULT_SCHEMA.equals(schema)) {
+            throw new IllegalArgumentException("Bulk import needs a tenant (X-Project-ID or a tenant token)");
+        }
+
+        if (!concurrentImports.tryAcquire()) {
+            throw new ServiceBusyException("Too many imports running, retry later", 30);
+        }
+        try {
+            return run(reader, format, callerRole, schema, listener);
+        } finally {
+            concurrentImports.release();
+        }
+    }
+
+    private Map<String, Object> run(BufferedReader reader, Format format, UserRole callerRole, String schema,
+                                    Consumer<Map<String, Object>> listener) throws IOException {
+        // Emails seen earlier in this import; duplicates inside the file are rejected too
+        Set<String> seen = new HashSet<>();
+        List<Row> chunk = new ArrayList<>(chunkSize);
+        int[] totals = new int[3]; // processed, imported, rejected
+        int lineNumber = 0;
+        boolean headerChecked = format != Format.CSV;
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            if (!headerChecked) {
+                headerChecked = true;
+                if (line.toLowerCase(Locale.ROOT).startsWith("name,")) {
+                    continue;
+                }
+            }
+            if (totals[0] + chunk.size() >= maxRows) {
+                listener.accept(error(lineNumber, null, "Row limit of " + maxRows + " reached, rest of input ignored"));
+                break;
+            }
+
+            Row row;
+            try {
+                row = format == Format.CSV ? parseCsv(lineNumber, line, callerRole) : parseJson(lineNumber, line, callerRole);
+            } catch (IllegalArgumentException e) {
+                reject(listener, totals, error(lineNumber, null, e.getMessage()));
+                continue;
+            }
+            if (!seen.add(row.emailKey())) {
+                reject(listener, totals, error(lineNumber, row.email(), "Duplicate email in import"));
+                continue;
+            }
+            chunk.add(row);
+            if (chunk.size() == chunkSize) {
+                processChunk(schema, chunk, totals, listener);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            processChunk(schema, chunk, totals, listener);
+        }
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("type", "summary");
+        summary.put("processed", totals[0]);
+        summary.put("imported", totals[1]);
+        summary.put("rejected", totals[2]);
+        listener.accept(summary);
+        return summary;
+    }
+
+    private void processChunk(String schema, List<Row> chunk, int[] totals, Consumer<Map<String, Object>> listener) {
+        chunkTimer.record(() -> {
+            try {
+                importChunk(schema, chunk, totals, listener);
+            } catch (SQLException | IllegalStateException | RejectedExecutionException e) {
+                // Database or hashing pool failure; only this chunk's rows are lost
+                for (Row row : chunk) {
+                    reject(listener, totals, error(row.line(), row.email(), "Chunk failed: " + e.getMessage()));
+                }
+            }
+        });
+
+        Map<String, Object> progress = new LinkedHashMap<>();
+        progress.put("type", "progress");
+        progress.put("processed", totals[0]);
+        progress.put("imported", totals[1]);
+        progress.put("rejected", totals[2]);
+        listener.accept(progress);
+    }
+
+    private void importChunk(String schema, List<Row> chunk, int[] totals, Consumer<Map<String, Object>> listener)
+            throws SQLException {
+        Set<String> existing;
+        Connection conn = connectionProvider.getConnection(schema);
+        try {
+            existing = existingEmails(conn, chunk);
+        } finally {
+            connectionProvider.releaseConnection(schema, conn);
+        }
+
+        List<Row> fresh = new ArrayList<>(chunk.size());
+        for (Row row : chunk) {
+            if (existing.contains(row.emailKey())) {
+                reject(listener, totals, error(row.line(), row.email(), "User with this email already exists"));
+            } else {
+                fresh.add(row);
+            }
+        }
+        if (fresh.isEmpty()) {
+            return;
+        }
+
+        // Hashing takes seconds per chunk; no tenant connection is held meanwhile
+        List<String> hashes = hashAll(fresh);
+
+        conn = connectionProvider.getConnection(schema);
+        try {
+            insert(conn, schema, fresh, hashes, totals, listener);
+        } finally {
+            connectionProvider.releaseConnection(schema, conn);
+        }
+    }
+
+    // One round trip per chunk, served by idx_users_email_upper
+    private Set<String> existingEmails(Connection conn, List<Row> chunk) throws SQLException {
+        String[] keys = chunk.stream().map(Row::emailKey).toArray(String[]::new);
+        Set<String> existing = new HashSet<>();
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT upper(email) FROM users WHERE upper(email) = ANY(?)")) {
+            Array array = conn.createArrayOf("text", keys);
+            stmt.setArray(1, array);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    existing.add(rs.getString(1));
+                }
+            }
+            array.free();
+        }
+        return existing;
+    }
+
+    private List<String> hashAll(List<Row> rows) {
+        List<Future<String>> futures = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            futures.add(hashExecutor.submit(() -> passwordEncoder.encode(row.password())));
+        }
+        List<String> hashes = new ArrayList<>(rows.size());
+        try {
+            for (Future<String> future : futures) {
+                hashes.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(f -> f.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing passwords", e);
+        } catch (ExecutionException e) {
+            futures.forEach(f -> f.cancel(true));
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+        return hashes;
+    }
+
+    private void insert(Connection conn, String schema, List<Row> rows, List<String> hashes, int[] totals,
+                        Consumer<Map<String, Object>> listener) throws SQLException {
+        // Covers emails registered between the existence check and the insert: NOT EXISTS
+        // matches any letter case, ON CONFLICT the exact email committed concurrently
+        String sql = "INSERT INTO users (name, email, password_hash, role) SELECT ?, ?, ?, ? "
+                + "WHERE NOT EXISTS (SELECT 1 FROM users WHERE upper(email) = ?) "
+                + "ON CONFLICT (email) DO NOTHING";
+        conn.setAutoCommit(false);
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < rows.size(); i++) {
+                Row row = rows.get(i);
+                stmt.setString(1, row.name());
+                stmt.setString(2, row.email());
+                stmt.setString(3, hashes.get(i));
+                stmt.setString(4, row.role().name());
+                stmt.setString(5, row.emailKey());
+                stmt.addBatch();
+            }
+            int[] counts = stmt.executeBatch();
+            conn.commit();
+
+            for (int i = 0; i < rows.size(); i++) {
+                Row row = rows.get(i);
+                if (counts[i] == 0) {
+                    reject(listener, totals, error(row.line(), row.email(), "User with this email already exists"));
+                } else {
+                    totals[0]++;
+                    totals[1]++;
+                    importedRows.increment();
+                    // Drops cached "unknown email" answers from earlier login attempts
+                    userLookupCache.invalidate(schema, row.email());
+                }
+            }
+        } catch (SQLException | RuntimeException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    Row parseCsv(int line, String text, UserRole callerRole) {
+        List<String> fields = splitCsv(text);
+        if (fields.size() < 3 || fields.size() > 4) {
+            throw new IllegalArgumentException("Expected name,email,password[,role]");
+        }
+        return toRow(line, fields.get(0), fields.get(1), fields.get(2), fields.size() == 4 ? fields.get(3) : null,
+                callerRole);
+    }
+
+    Row parseJson(int line, String text, UserRole callerRole) {
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(text);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Malformed JSON");
+        }
+        if (node == null || !node.isObject()) {
+            throw new IllegalArgumentException("Expected a JSON object");
+        }
+        return toRow(line, node.path("name").asText(null), node.path("email").asText(null),
+                node.path("password").asText(null), node.path("role").asText(null), callerRole);
+    }
+
+    private static Row toRow(int line, String name, String email, String password, String role, UserRole callerRole) {
+        if (name == null || name.isBlank() || name.length() > 100) {
+            throw new IllegalArgumentException("Name is required (max 100 characters)");
+        }
+        if (email == null || email.isBlank() || email.length() > 255 || email.indexOf('@') < 1) {
+            throw new IllegalArgumentException("Valid email is required");
+        }
+        if (password == null || password.isEmpty()) {
+            throw new IllegalArgumentException("Password is required");
+        }
+        UserRole userRole = UserRole.USER;
+        if (role != null && !role.isBlank()) {
+            try {
+                userRole = UserRole.valueOf(role.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown role: " + role);
+            }
+            // Imports cannot mint platform-wide administrators
+            if (userRole == UserRole.SUPER_ADMIN) {
+                throw new IllegalArgumentException("Role SUPER_ADMIN cannot be imported");
+            }
+            if (callerRole == null || userRole.compareTo(callerRole) > 0) {
+                throw new IllegalArgumentException("Role " + userRole + " is above your own");
+            }
+        }
+        // Stored lower-case, like the login cache keys, so one address cannot land twice in different case
+        String normalizedEmail = UserLookupCache.normalizeEmail(email);
+        return new Row(line, name.trim(), normalizedEmail, normalizedEmail.toUpperCase(Locale.ROOT), password, userRole);
+    }
+
+    // RFC 4180 subset: commas, double-quoted fields, "" as an escaped quote; no embedded newlines
+    private static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>(4);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private void reject(Consumer<Map<String, Object>> listener, int[] totals, Map<String, Object> error) {
+        totals[0]++;
+        totals[2]++;
+        rejectedRows.increment();
+        listener.accept(error);
+    }
+
+    private static Map<String, Object> error(int line, String email, String message) {
+        Map<String, Object> error = new LinkedHashMap<>();
+        error.put("type", "error");
+        error.put("line", line);
+        if (email != null) {
+            error.put("email", email);
+        }
+        error.put("message", message);
+        return error;
+    }
+
+    record Row(int line, String name, String email, String emailKey, String password, UserRole role) {}
+
+    @PreDestroy
+    public void shutdown() {
+        hashExecutor.shutdownNow();
+    }
+}
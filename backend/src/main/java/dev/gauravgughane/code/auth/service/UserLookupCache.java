@@ -0,0 +1,117 @@
+package dev.gauravgughane.code.auth.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import dev.gauravgughane.code.auth.dto.LoginUser;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Login lookups keyed by (tenant schema, normalized email). Unknown emails are cached
+ * too, with a shorter TTL, so repeated probes do not reach the database.
+ *
+ * Entries are dropped explicitly on register, password change and deletion; the TTL
+ * bounds staleness for changes made by other nodes.
+ */
+@Component
+public class UserLookupCache {
+
+    private final Cache<Key, Optional<LoginUser>> cache;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, TenantCounters> counters = new ConcurrentHashMap<>();
+
+    public UserLookupCache(@Value("${auth.login.cache.max-size:100000}") long maxSize,
+                           @Value("${auth.login.cache.ttl:5m}") Duration ttl,
+                           @Value("${auth.login.cache.negative-ttl:30s}") Duration negativeTtl,
+                           MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        long ttlNanos = ttl.toNanos();
+        long negativeTtlNanos = negativeTtl.toNanos();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<Key, Optional<LoginUser>>() {
+                    @Override
+                    public long expireAfterCreate(Key key, Optional<LoginUser> value, long currentTime) {
+                        return value.isPresent() ? ttlNanos : negativeTtlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Key key, Optional<LoginUser> value, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(Key key, Optional<LoginUser> value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .removalListener((Key key, Optional<LoginUser> value, RemovalCause cause) -> {
+                    if (key != null && cause.wasEvicted()) {
+                        countersFor(key.schema()).evictions.increment();
+                    }
+                })
+                .build();
+    }
+
+    public static String normalizeEmail(String email) {
+        return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    public Optional<LoginUser> get(String schema, String email, Function<String, Optional<LoginUser>> loader) {
+        Key key = new Key(schema, normalizeEmail(email));
+        TenantCounters tenantCounters = countersFor(schema);
+        Optional<LoginUser> cached = cache.getIfPresent(key);
+        if (cached != null) {
+            (cached.isPresent() ? tenantCounters.hits : tenantCounters.negativeHits).increment();
+            return cached;
+        }
+        tenantCounters.misses.increment();
+        return cache.get(key, k -> loader.apply(k.email()));
+    }
+
+    public void invalidate(String schema, String email) {
+        cache.invalidate(new Key(schema, normalizeEmail(email)));
+    }
+
+    private TenantCounters countersFor(String schema) {
+        return counters.computeIfAbsent(schema, s -> new TenantCounters(meterRegistry, s));
+    }
+
+    private record Key(String schema, String email) {}
+
+    private static final class TenantCounters {
+        final Counter hits;
+        final Counter negativeHits;
+        final Counter misses;
+        final Counter evictions;
+
+        TenantCounters(MeterRegistry registry, String tenant) {
+            this.hits = lookup(registry, tenant, "hit");
+            this.negativeHits = lookup(registry, tenant, "negative_hit");
+            this.misses = lookup(registry, tenant, "miss");
+            this.evictions = Counter.builder("auth.user_cache.evictions")
+                    .description("Login cache entries evicted for size or expiry")
+                    .tag("tenant", tenant)
+                    .register(registry);
+        }
+
+        private static Counter lookup(MeterRegistry registry, String tenant, String result) {
+            return Counter.builder("auth.user_cache.requests")
+                    .description("Login cache lookups by outcome")
+                    .tag("tenant", tenant)
+                    .tag("result", result)
+                    .register(registry);
+        }
+    }
+}
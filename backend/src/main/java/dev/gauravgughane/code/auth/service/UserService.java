@@ -1,19 +1,31 @@
 package dev.gauravgughane.code.auth.service;
 
+import dev.gauravgughane.code.auth.dto.LoginUser;
+import dev.gauravgughane.code.auth.dto.TenantDescriptor;
+import dev.gauravgughane.code.auth.dto.UserPage;
+import dev.gauravgughane.code.auth.dto.UserSummary;
 import dev.gauravgughane.code.auth.entity.BaseUser;
 import dev.gauravgughane.code.auth.repository.BaseUserRepository;
+import dev.gauravgughane.code.auth.config.ReplicaRouter;
 import dev.gauravgughane.code.auth.config.TenantContext;
+import dev.gauravgughane.code.auth.exception.ServiceBusyException;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import javax.sql.DataSource;
-import java.sql.Connection;
-import java.sql.SQLException;
-import java.sql.Statement;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Base64;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class UserService {
@@ -22,67 +34,162 @@ public class UserService {
     private BaseUserRepository userRepository;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private PasswordHashingService passwordHashingService;
 
     @Autowired
-    private DataSource dataSource;
+    private TenantRegistry tenantRegistry;
 
-    public BaseUser registerUser(String name, String email, String password) {
-        if (userRepository.findByEmail(email).isPresent()) {
-            throw new RuntimeException("User with email " + email + " already exists");
+    @Autowired
+    private UserLookupCache userLookupCache;
+
+    @Autowired
+    private LastLoginRecorder lastLoginRecorder;
+
+    @Autowired
+    private ReplicaRouter replicaRouter;
+
+    @Value("${auth.users.page.max-size:500}")
+    private int maxPageSize;
+
+    public BaseUser registerUser(String name, String rawEmail, String password) {
+        // Stored lower-case, as bulk import stores them, so both match the same way
+        String email = UserLookupCache.normalizeEmail(rawEmail);
+
+        // Provision first so the lookup below already resolves to the tenant schema
+        TenantDescriptor tenant = TenantContext.get();
+        if (tenant != null && !tenant.isProvisioned()) {
+            TenantContext.set(tenantRegistry.ensureProvisioned(tenant.tenantId()));
         }
 
-        String tenantId = TenantContext.getTenantId();
-        if (tenantId != null && !tenantId.equals("public") && !tenantSchemaExists(tenantId)) {
-            createTenantSchema(tenantId);
+        if (userRepository.existsByEmailIgnoreCase(email)) {
+            throw new RuntimeException("User with email " + email + " already exists");
         }
 
-        String hashedPassword = passwordEncoder.encode(password);
+        String hashedPassword = passwordHashingService.encode(password);
         BaseUser user = new BaseUser(name, email, hashedPassword);
-        return userRepository.save(user);
+        BaseUser saved = userRepository.save(user);
+        // Drops a cached "unknown email" answer left by earlier login attempts
+        userLookupCache.invalidate(currentSchema(), email);
+        return saved;
     }
 
     public Optional<BaseUser> findByEmail(String email) {
         return userRepository.findByEmail(email);
     }
 
-    public boolean checkPassword(BaseUser user, String rawPassword) {
-        return passwordEncoder.matches(rawPassword, user.getPasswordHash());
+    // Login lookup, answered from the per-tenant cache when possible (including misses)
+    public Optional<LoginUser> findLoginUser(String email) {
+        return userLookupCache.get(currentSchema(), email, this::loadLoginUser);
+    }
+
+    private Optional<LoginUser> loadLoginUser(String email) {
+        Optional<LoginUser> user = userRepository.findLoginUser(email);
+        if (user.isEmpty() && replicaRouter.enabled()) {
+            // A replica may not have the registration yet (e.g. made on another node); confirm
+            // the miss on the primary before it is cached
+            return replicaRouter.onPrimary(() -> userRepository.findLoginUser(email));
+        }
+        return user;
     }
 
-    public List<BaseUser> findAll() {
-        return userRepository.findAll();
+    public boolean checkPassword(LoginUser user, String rawPassword) {
+        if (!passwordHashingService.matches(rawPassword, user.passwordHash())) {
+            return false;
+        }
+        if (passwordHashingService.needsRehash(user.passwordHash())) {
+            // The plain password is only available here, so upgrade the stored cost now
+            try {
+                updatePasswordHash(user, passwordHashingService.encode(rawPassword));
+            } catch (ServiceBusyException e) {
+                // Not worth failing the login over; the next successful login retries
+            }
+        }
+        return true;
     }
 
-    public List<BaseUser> findAllUsers() {
-        return findAll();
+    // Buffered; users.last_login catches up on the next flush
+    public void recordLogin(LoginUser user) {
+        lastLoginRecorder.record(currentSchema(), user.id(), Instant.now());
     }
 
-    private void createTenantSchema(String tenantId) {
-        try (Connection conn = dataSource.getConnection();
-             Statement stmt = conn.createStatement()) {
-            
-            String schemaName = "tenant_" + tenantId.toLowerCase();
-            stmt.execute("CREATE SCHEMA IF NOT EXISTS " + schemaName);
-            
-        } catch (SQLException e) {
-            throw new RuntimeException("Failed to create tenant schema: " + e.getMessage(), e);
-        }
+    public void updatePasswordHash(LoginUser user, String passwordHash) {
+        userRepository.updatePasswordHash(user.id(), passwordHash);
+        userLookupCache.invalidate(currentSchema(), user.email());
     }
 
-    private boolean tenantSchemaExists(String tenantId) {
-        try (Connection conn = dataSource.getConnection();
-             Statement stmt = conn.createStatement()) {
-            
-            String schemaName = "tenant_" + tenantId.toLowerCase();
-            var rs = stmt.executeQuery(
-                "SELECT schema_name FROM information_schema.schemata WHERE schema_name = '" + 
-                schemaName + "'"
-            );
-            return rs.next();
-            
-        } catch (SQLException e) {
+    @Transactional
+    public boolean deleteUser(UUID id) {
+        Optional<BaseUser> user = userRepository.findById(id);
+        if (user.isEmpty()) {
             return false;
         }
+        userRepository.detachAuditLogs(id);
+        userRepository.delete(user.get());
+
+        // A login racing the delete can still read the committed row and cache it again, so
+        // the entry is dropped once more after the delete is visible
+        String schema = currentSchema();
+        String email = user.get().getEmail();
+        userLookupCache.invalidate(schema, email);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                userLookupCache.invalidate(schema, email);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * One page of users ordered by (created_at, id). The cursor is opaque to clients:
+     * pass back the nextCursor of the previous page, or null for the first page.
+     */
+    @Transactional(readOnly = true)
+    public UserPage listUsers(String cursor, int requestedSize) {
+        int size = Math.max(1, Math.min(requestedSize, maxPageSize));
+        // Fetch one extra row to know whether another page exists
+        Limit limit = Limit.of(size + 1);
+        List<UserSummary> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = userRepository.findFirstPage(limit);
+        } else {
+            Cursor position = decodeCursor(cursor);
+            rows = userRepository.findPageAfter(position.createdAt(), position.id(), limit);
+        }
+
+        if (rows.size() <= size) {
+            return new UserPage(rows, null);
+        }
+        List<UserSummary> items = rows.subList(0, size);
+        return new UserPage(items, encodeCursor(items.get(size - 1)));
+    }
+
+    // Streams every user of the current tenant; memory stays flat regardless of tenant size
+    @Transactional(readOnly = true)
+    public void streamUsers(Consumer<UserSummary> sink) {
+        try (Stream<UserSummary> users = userRepository.streamAll()) {
+            users.forEach(sink);
+        }
     }
+
+    private String currentSchema() {
+        return TenantContext.getSchema();
+    }
+
+    private static String encodeCursor(UserSummary last) {
+        String raw = last.createdAt() + "|" + last.id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Cursor decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            return new Cursor(LocalDateTime.parse(raw.substring(0, separator)), UUID.fromString(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    private record Cursor(LocalDateTime createdAt, UUID id) {}
 }
\ No newline at end of file
@@ -0,0 +1,166 @@
+package dev.gauravgughane.code.auth.perf;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.gauravgughane.code.auth.AuthApplication;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Mixed login / register / admin-listing load across several tenants against the full
+ * application on an embedded PostgreSQL. Prints latency percentiles per endpoint and per
+ * tenant, writes them to target/perf, and fails when a budget in perf.properties is
+ * exceeded.
+ */
+@SpringBootTest(classes = AuthApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class AuthLoadPerfIT {
+
+    private static final PerfSettings SETTINGS = new PerfSettings();
+    private static final String PASSWORD = "Perf-password-1";
+    private static final int BCRYPT_STRENGTH = 10;
+
+    private static PerfDatabase database;
+
+    @LocalServerPort
+    private int port;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final AtomicLong registrations = new AtomicLong();
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) throws Exception {
+        database = PerfDatabase.start();
+        database.provisionTenants(SETTINGS.getInt("perf.tenants"), SETTINGS.getInt("perf.users-per-tenant"),
+                PASSWORD, BCRYPT_STRENGTH);
+
+        registry.add("spring.datasource.url", database::jdbcUrl);
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+        registry.add("spring.datasource.hikari.maximum-pool-size", () -> "40");
+        // The schema comes from the init script; public has no users table to validate against
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "none");
+        registry.add("auth.password.bcrypt-strength", () -> BCRYPT_STRENGTH);
+        // Measure the service, not the brute-force protection
+        registry.add("auth.login.rate-limit.enabled", () -> "false");
+        registry.add("auth.tenant.schema-pool.enabled", () -> "false");
+        registry.add("auth.jwt.keys.encryption-secret", () -> "perf");
+    }
+
+    @AfterAll
+    static void stopDatabase() throws Exception {
+        if (database != null) {
+            database.stop();
+        }
+    }
+
+    @Test
+    void mixedWorkloadStaysWithinBudgets() throws Exception {
+        List<String> tenants = database.tenants();
+        Map<String, String> adminTokens = new HashMap<>();
+        for (String tenant : tenants) {
+            adminTokens.put(tenant, login(tenant, PerfDatabase.adminEmail()));
+        }
+
+        int usersPerTenant = SETTINGS.getInt("perf.users-per-tenant");
+        LoadGenerator load = new LoadGenerator()
+                .add("login", SETTINGS.getInt("perf.mix.login"), () -> {
+                    String tenant = randomTenant(tenants);
+                    int user = ThreadLocalRandom.current().nextInt(usersPerTenant);
+                    return outcome(tenant, post(tenant, "/api/auth/login",
+                            Map.of("email", PerfDatabase.userEmail(user), "password", PASSWORD)));
+                })
+                .add("register", SETTINGS.getInt("perf.mix.register"), () -> {
+                    String tenant = randomTenant(tenants);
+                    long n = registrations.incrementAndGet();
+                    return outcome(tenant, post(tenant, "/api/auth/register",
+                            Map.of("name", "Load " + n, "email", "load" + n + "@perf.test", "password", PASSWORD)));
+                })
+                .add("list", SETTINGS.getInt("perf.mix.list"), () -> {
+                    String tenant = randomTenant(tenants);
+                    HttpRequest request = HttpRequest.newBuilder(uri("/api/admin/users?size=50"))
+                            .header("X-Project-ID", tenant)
+                            .header("Authorization", "Bearer " + adminTokens.get(tenant))
+                            .GET()
+                            .build();
+                    return outcome(tenant, http.send(request, HttpResponse.BodyHandlers.discarding()));
+                });
+
+        int concurrency = SETTINGS.getInt("perf.concurrency");
+        Duration duration = SETTINGS.getDuration("perf.duration");
+
+        // Warm-up results are thrown away: JIT, pools and caches settle first
+        load.run(concurrency, SETTINGS.getDuration("perf.warmup"), new LatencyRecorder());
+
+        LatencyRecorder recorder = new LatencyRecorder();
+        long start = System.nanoTime();
+        load.run(concurrency, duration, recorder);
+        Duration measured = Duration.ofNanos(System.nanoTime() - start);
+
+        Map<String, Object> scenario = new LinkedHashMap<>();
+        scenario.put("tenants", tenants.size());
+        scenario.put("usersPerTenant", usersPerTenant);
+        scenario.put("concurrency", concurrency);
+        scenario.put("durationSeconds", measured.toMillis() / 1000.0);
+        scenario.put("bcryptStrength", BCRYPT_STRENGTH);
+        scenario.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+
+        PerfReport report = new PerfReport(recorder.snapshot(), measured, scenario);
+        System.out.println(report.table());
+        Path file = report.write(Path.of(System.getProperty("perf.report.dir", "target/perf")));
+        System.out.println("Perf report written to " + file);
+
+        List<String> violations = report.violations(SETTINGS);
+        if (!violations.isEmpty()) {
+            fail("Performance budgets exceeded:\n  " + String.join("\n  ", violations));
+        }
+    }
+
+    private String login(String tenant, String email) throws Exception {
+        HttpResponse<String> response = post(tenant, "/api/auth/login", Map.of("email", email, "password", PASSWORD));
+        assertTrue(response.statusCode() == 200, "Admin login failed for " + tenant + ": " + response.body());
+        JsonNode body = objectMapper.readTree(response.body());
+        return body.get("token").asText();
+    }
+
+    private HttpResponse<String> post(String tenant, String path, Map<String, String> body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(uri(path))
+                .header("X-Project-ID", tenant)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                .build();
+        return http.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private static LoadGenerator.Outcome outcome(String tenant, HttpResponse<?> response) {
+        return new LoadGenerator.Outcome(tenant, response.statusCode() / 100 == 2);
+    }
+
+    private static String randomTenant(List<String> tenants) {
+        return tenants.get(ThreadLocalRandom.current().nextInt(tenants.size()));
+    }
+}
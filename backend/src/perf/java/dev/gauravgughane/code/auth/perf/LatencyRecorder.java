@@ -0,0 +1,48 @@
+package dev.gauravgughane.code.auth.perf;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms (microseconds) per endpoint and per (endpoint, tenant), plus
+ * error counts. Safe to record into from any number of load threads.
+ */
+final class LatencyRecorder {
+
+    private static final long MAX_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    record Stats(Histogram histogram, long errors) {}
+
+    private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+    void record(String endpoint, String tenant, long nanos, boolean ok) {
+        long micros = Math.min(MAX_TRACKABLE_MICROS, Math.max(1, TimeUnit.NANOSECONDS.toMicros(nanos)));
+        histogram(endpoint).recordValue(micros);
+        histogram(endpoint + "@" + tenant).recordValue(micros);
+        if (!ok) {
+            errors.computeIfAbsent(endpoint, k -> new LongAdder()).increment();
+            errors.computeIfAbsent(endpoint + "@" + tenant, k -> new LongAdder()).increment();
+        }
+    }
+
+    // Keys are "endpoint" and "endpoint@tenant", sorted so endpoints come before their tenants
+    Map<String, Stats> snapshot() {
+        Map<String, Stats> result = new TreeMap<>();
+        histograms.forEach((key, histogram) -> {
+            LongAdder errorCount = errors.get(key);
+            result.put(key, new Stats(histogram.copy(), errorCount != null ? errorCount.sum() : 0));
+        });
+        return result;
+    }
+
+    private Histogram histogram(String key) {
+        return histograms.computeIfAbsent(key, k -> new ConcurrentHistogram(MAX_TRACKABLE_MICROS, 3));
+    }
+}
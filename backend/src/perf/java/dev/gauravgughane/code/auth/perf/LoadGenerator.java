@@ -0,0 +1,72 @@
+package dev.gauravgughane.code.auth.perf;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Closed-loop load: `concurrency` threads each run one operation after another, picked
+ * at random by weight, until the time is up. An operation returns whether it succeeded;
+ * timing and recording happen here so every operation is measured the same way.
+ */
+final class LoadGenerator {
+
+    interface Operation {
+        // Returns the tenant the call went to and whether it succeeded
+        Outcome run() throws Exception;
+    }
+
+    record Outcome(String tenant, boolean ok) {}
+
+    private record Weighted(String endpoint, int weight, Operation operation) {}
+
+    private final List<Weighted> operations = new ArrayList<>();
+    private int totalWeight;
+
+    LoadGenerator add(String endpoint, int weight, Operation operation) {
+        if (weight > 0) {
+            operations.add(new Weighted(endpoint, weight, operation));
+            totalWeight += weight;
+        }
+        return this;
+    }
+
+    void run(int concurrency, Duration duration, LatencyRecorder recorder) throws InterruptedException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        AtomicInteger threadCount = new AtomicInteger();
+        List<Thread> workers = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            Thread worker = new Thread(() -> {
+                while (System.nanoTime() < deadline) {
+                    Weighted next = pick();
+                    long start = System.nanoTime();
+                    Outcome outcome;
+                    try {
+                        outcome = next.operation().run();
+                    } catch (Exception e) {
+                        outcome = new Outcome("unknown", false);
+                    }
+                    recorder.record(next.endpoint(), outcome.tenant(), System.nanoTime() - start, outcome.ok());
+                }
+            }, "perf-load-" + threadCount.incrementAndGet());
+            worker.start();
+            workers.add(worker);
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+
+    private Weighted pick() {
+        int roll = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Weighted candidate : operations) {
+            roll -= candidate.weight();
+            if (roll < 0) {
+                return candidate;
+            }
+        }
+        return operations.get(operations.size() - 1);
+    }
+}
@@ -0,0 +1,117 @@
+package dev.gauravgughane.code.auth.perf;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A real PostgreSQL server started from bundled binaries, initialized with the same
+ * database/01-init-schemas.sql the docker image runs, plus N generated tenants.
+ */
+final class PerfDatabase {
+
+    // The init script ends with ALTER DATABASE multitenant_auth
+    static final String DATABASE = "multitenant_auth";
+
+    private final EmbeddedPostgres postgres;
+    private final List<String> tenants = new ArrayList<>();
+
+    private PerfDatabase(EmbeddedPostgres postgres) {
+        this.postgres = postgres;
+    }
+
+    static PerfDatabase start() throws IOException, SQLException {
+        PerfDatabase database = new PerfDatabase(EmbeddedPostgres.builder()
+                .setServerConfig("max_connections", "200")
+                .setServerConfig("fsync", "off")
+                .start());
+        try (Connection conn = database.postgres.getPostgresDatabase().getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE DATABASE " + DATABASE);
+        }
+        try (Connection conn = database.dataSource().getConnection();
+             Statement stmt = conn.createStatement()) {
+            // The driver splits the script itself and understands the $$-quoted bodies
+            stmt.execute(readScript());
+        }
+        return database;
+    }
+
+    String jdbcUrl() {
+        return postgres.getJdbcUrl("postgres", DATABASE);
+    }
+
+    DataSource dataSource() {
+        return postgres.getDatabase("postgres", DATABASE);
+    }
+
+    List<String> tenants() {
+        return tenants;
+    }
+
+    /**
+     * Creates `count` tenants through create_tenant_schema(), each with `usersPerTenant`
+     * users plus one admin. All users share one BCrypt hash of the given password, so
+     * seeding costs a single hash; logins still pay the full verify.
+     */
+    void provisionTenants(int count, int usersPerTenant, String password, int bcryptStrength) throws SQLException {
+        String hash = new BCryptPasswordEncoder(bcryptStrength).encode(password);
+        try (Connection conn = dataSource().getConnection()) {
+            for (int t = 0; t < count; t++) {
+                String tenant = "perf-" + t;
+                try (PreparedStatement create = conn.prepareStatement("SELECT public.create_tenant_schema(?, ?)")) {
+                    create.setString(1, tenant);
+                    create.setString(2, tenant);
+                    create.execute();
+                }
+                String insert = "INSERT INTO \"tenant_" + tenant + "\".users (name, email, password_hash, role) VALUES (?, ?, ?, ?)";
+                try (PreparedStatement stmt = conn.prepareStatement(insert)) {
+                    for (int u = 0; u <= usersPerTenant; u++) {
+                        boolean admin = u == usersPerTenant;
+                        stmt.setString(1, admin ? "Admin" : "User " + u);
+                        stmt.setString(2, admin ? adminEmail() : userEmail(u));
+                        stmt.setString(3, hash);
+                        stmt.setString(4, admin ? "ADMIN" : "USER");
+                        stmt.addBatch();
+                    }
+                    stmt.executeBatch();
+                }
+                tenants.add(tenant);
+            }
+        }
+    }
+
+    static String userEmail(int index) {
+        return "user" + index + "@perf.test";
+    }
+
+    static String adminEmail() {
+        return "admin@perf.test";
+    }
+
+    void stop() throws IOException {
+        postgres.close();
+    }
+
+    private static String readScript() {
+        try (InputStream in = PerfDatabase.class.getResourceAsStream("/db/01-init-schemas.sql")) {
+            if (in == null) {
+                throw new IllegalStateException("db/01-init-schemas.sql not on the test classpath");
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package dev.gauravgughane.code.auth.perf;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Summary rows for the console and a JSON file per run, plus the budget check
+final class PerfReport {
+
+    record Row(String key, long count, long errors, double rps,
+               double p50Ms, double p90Ms, double p99Ms, double p999Ms, double maxMs) {
+
+        boolean isEndpoint() {
+            return key.indexOf('@') < 0;
+        }
+
+        double errorRate() {
+            return count == 0 ? 0 : (double) errors / count;
+        }
+    }
+
+    private final List<Row> rows = new ArrayList<>();
+    private final Map<String, Object> scenario;
+
+    PerfReport(Map<String, LatencyRecorder.Stats> stats, Duration measured, Map<String, Object> scenario) {
+        this.scenario = scenario;
+        double seconds = measured.toNanos() / 1e9;
+        stats.forEach((key, s) -> {
+            Histogram h = s.histogram();
+            rows.add(new Row(key, h.getTotalCount(), s.errors(), h.getTotalCount() / seconds,
+                    ms(h.getValueAtPercentile(50)), ms(h.getValueAtPercentile(90)),
+                    ms(h.getValueAtPercentile(99)), ms(h.getValueAtPercentile(99.9)), ms(h.getMaxValue())));
+        });
+    }
+
+    String table() {
+        StringBuilder out = new StringBuilder(String.format(Locale.ROOT,
+                "%-28s %9s %7s %9s %9s %9s %9s %9s %9s%n",
+                "endpoint[@tenant]", "count", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms"));
+        for (Row row : rows) {
+            out.append(String.format(Locale.ROOT, "%-28s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    row.isEndpoint() ? row.key() : "  " + row.key(), row.count(), row.errors(), row.rps(),
+                    row.p50Ms(), row.p90Ms(), row.p99Ms(), row.p999Ms(), row.maxMs()));
+        }
+        return out.toString();
+    }
+
+    /**
+     * Checks per-endpoint budgets: perf.budget.<endpoint>.p99-ms and .min-rps, and the
+     * global perf.budget.max-error-rate. Returns one line per violation.
+     */
+    List<String> violations(PerfSettings settings) {
+        List<String> violations = new ArrayList<>();
+        double maxErrorRate = settings.getDouble("perf.budget.max-error-rate");
+        for (Row row : rows) {
+            if (!row.isEndpoint()) {
+                continue;
+            }
+            String prefix = "perf.budget." + row.key() + ".";
+            if (settings.has(prefix + "p99-ms") && row.p99Ms() > settings.getDouble(prefix + "p99-ms")) {
+                violations.add(String.format(Locale.ROOT, "%s p99 %.1f ms > budget %s ms",
+                        row.key(), row.p99Ms(), settings.get(prefix + "p99-ms")));
+            }
+            if (settings.has(prefix + "min-rps") && row.rps() < settings.getDouble(prefix + "min-rps")) {
+                violations.add(String.format(Locale.ROOT, "%s throughput %.1f req/s < budget %s req/s",
+                        row.key(), row.rps(), settings.get(prefix + "min-rps")));
+            }
+            if (row.errorRate() > maxErrorRate) {
+                violations.add(String.format(Locale.ROOT, "%s error rate %.2f%% > budget %.2f%%",
+                        row.key(), row.errorRate() * 100, maxErrorRate * 100));
+            }
+        }
+        return violations;
+    }
+
+    Path write(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        String stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        Path file = directory.resolve("perf-report-" + stamp + ".json");
+
+        Map<String, Object> document = new LinkedHashMap<>();
+        document.put("scenario", scenario);
+        document.put("results", rows);
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), document);
+        return file;
+    }
+
+    private static double ms(long micros) {
+        return micros / 1000.0;
+    }
+}
@@ -0,0 +1,49 @@
+package dev.gauravgughane.code.auth.perf;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Properties;
+
+// perf.properties from the classpath, with system properties taking precedence
+final class PerfSettings {
+
+    private final Properties defaults = new Properties();
+
+    PerfSettings() {
+        try (InputStream in = PerfSettings.class.getResourceAsStream("/perf.properties")) {
+            if (in != null) {
+                defaults.load(in);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    String get(String key) {
+        String value = System.getProperty(key, defaults.getProperty(key));
+        if (value == null) {
+            throw new IllegalStateException("Missing perf setting " + key);
+        }
+        return value.trim();
+    }
+
+    boolean has(String key) {
+        return System.getProperty(key) != null || defaults.getProperty(key) != null;
+    }
+
+    int getInt(String key) {
+        return Integer.parseInt(get(key));
+    }
+
+    double getDouble(String key) {
+        return Double.parseDouble(get(key));
+    }
+
+    Duration getDuration(String key) {
+        return DurationStyle.detectAndParse(get(key));
+    }
+}
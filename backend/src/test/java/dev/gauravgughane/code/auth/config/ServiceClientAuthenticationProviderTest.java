@@ -0,0 +1,55 @@
+package dev.gauravgughane.code.auth.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ServiceClientAuthenticationProviderTest {
+
+    private static ServiceClientAuthenticationProvider provider(String id, String secret, String... roles) {
+        ServiceClientProperties.Client client = new ServiceClientProperties.Client();
+        client.setSecret(secret);
+        client.setRoles(Set.of(roles));
+        ServiceClientProperties properties = new ServiceClientProperties();
+        properties.getClients().put(id, client);
+        return new ServiceClientAuthenticationProvider(properties);
+    }
+
+    private static Authentication basic(String id, String secret) {
+        return UsernamePasswordAuthenticationToken.unauthenticated(id, secret);
+    }
+
+    @Test
+    void grantsConfiguredRoles() {
+        Authentication result = provider("orders", "s3cret", "introspect").authenticate(basic("orders", "s3cret"));
+
+        assertTrue(result.isAuthenticated());
+        assertEquals("orders", result.getName());
+        assertEquals(Set.of("ROLE_INTROSPECT"),
+                Set.copyOf(result.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList()));
+    }
+
+    @Test
+    void rejectsWrongSecretAndUnknownClient() {
+        ServiceClientAuthenticationProvider provider = provider("orders", "s3cret", "INTROSPECT");
+
+        assertThrows(BadCredentialsException.class, () -> provider.authenticate(basic("orders", "wrong")));
+        assertThrows(BadCredentialsException.class, () -> provider.authenticate(basic("billing", "s3cret")));
+        assertThrows(BadCredentialsException.class, () -> provider.authenticate(basic("orders", null)));
+    }
+
+    @Test
+    void clientWithoutSecretCannotAuthenticate() {
+        ServiceClientAuthenticationProvider provider = provider("orders", "", "INTROSPECT");
+
+        assertThrows(BadCredentialsException.class, () -> provider.authenticate(basic("orders", "")));
+    }
+}
@@ -0,0 +1,118 @@
+package dev.gauravgughane.code.auth.config;
+
+import dev.gauravgughane.code.auth.service.TenantRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class TenantBulkheadTest {
+
+    private final TenantPoolProperties properties = new TenantPoolProperties();
+    private final ShardProperties shardProperties = new ShardProperties();
+    private final ReplicaProperties replicaProperties = new ReplicaProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private TenantBulkhead bulkhead(int mainPoolSize) {
+        return new TenantBulkhead(properties, mock(TenantRegistry.class), shardProperties, replicaProperties,
+                mainPoolSize, meterRegistry);
+    }
+
+    private static ShardProperties.Node node(int poolSize) {
+        ShardProperties.Node node = new ShardProperties.Node();
+        node.setMaximumPoolSize(poolSize);
+        return node;
+    }
+
+    @Test
+    void eachPoolHasItsOwnCapacity() throws Exception {
+        properties.setAcquireTimeout(Duration.ofMillis(50));
+        shardProperties.getNodes().put("shard2", node(1));
+        replicaProperties.getNodes().put(ShardRouter.MAIN, List.of(node(1)));
+        TenantBulkhead bulkhead = bulkhead(1);
+
+        bulkhead.acquire("tenant_a", ShardRouter.MAIN);
+
+        // A full main primary neither blocks its replica nor another shard
+        assertDoesNotThrow(() -> bulkhead.acquire("tenant_b", ReplicaRouter.poolName(ShardRouter.MAIN, 0)));
+        assertDoesNotThrow(() -> bulkhead.acquire("tenant_c", "shard2"));
+        assertThrows(SQLTransientConnectionException.class, () -> bulkhead.acquire("tenant_b", ShardRouter.MAIN));
+
+        bulkhead.release("tenant_a", ShardRouter.MAIN);
+        assertDoesNotThrow(() -> bulkhead.acquire("tenant_b", ShardRouter.MAIN));
+        assertEquals(1.0, meterRegistry.get("tenant.connection.in_use").tag("pool", ShardRouter.MAIN).gauge().value());
+    }
+
+    @Test
+    void tenantLimitAppliesWithinAPool() throws Exception {
+        properties.setAcquireTimeout(Duration.ofMillis(50));
+        properties.setDefaultLimit(1);
+        TenantBulkhead bulkhead = bulkhead(4);
+
+        bulkhead.acquire("tenant_a", ShardRouter.MAIN);
+
+        assertThrows(SQLTransientConnectionException.class, () -> bulkhead.acquire("tenant_a", ShardRouter.MAIN));
+        assertDoesNotThrow(() -> bulkhead.acquire("tenant_b", ShardRouter.MAIN));
+    }
+
+    @Test
+    void backloggedTenantsAreServedInProportionToTheirWeights() throws Exception {
+        properties.setDefaultLimit(1);
+        properties.getWeights().put("tenant_a", 1);
+        properties.getWeights().put("tenant_b", 2);
+        TenantBulkhead bulkhead = bulkhead(1);
+
+        // Hold the only connection so every request below has to queue
+        bulkhead.acquire("tenant_hold", ShardRouter.MAIN);
+
+        List<String> grants = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            String tenant = i < 4 ? "tenant_a" : "tenant_b";
+            threads.add(Thread.ofPlatform().start(() -> {
+                try {
+                    bulkhead.acquire(tenant, ShardRouter.MAIN);
+                    grants.add(tenant);
+                    bulkhead.release(tenant, ShardRouter.MAIN);
+                } catch (SQLException e) {
+                    grants.add("timeout");
+                }
+            }));
+        }
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (meterRegistry.get("tenant.connection.waiting").tag("pool", ShardRouter.MAIN).gauge().value() < 12) {
+            assertTrue(System.nanoTime() < deadline, "requests did not queue");
+            Thread.sleep(5);
+        }
+
+        bulkhead.release("tenant_hold", ShardRouter.MAIN);
+        for (Thread thread : threads) {
+            thread.join(5_000);
+        }
+
+        assertEquals(12, grants.size());
+        // While both are backlogged, every three grants go once to tenant_a and twice to tenant_b
+        for (int start = 0; start < 9; start += 3) {
+            assertEquals(1, Collections.frequency(grants.subList(start, start + 3), "tenant_a"), grants.toString());
+            assertEquals(2, Collections.frequency(grants.subList(start, start + 3), "tenant_b"), grants.toString());
+        }
+    }
+
+    @Test
+    void unknownPoolIsRejected() {
+        TenantBulkhead bulkhead = bulkhead(1);
+
+        assertThrows(IllegalStateException.class, () -> bulkhead.acquire("tenant_a", "nowhere"));
+    }
+}
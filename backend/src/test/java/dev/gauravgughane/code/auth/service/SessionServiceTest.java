@@ -0,0 +1,179 @@
+package dev.gauravgughane.code.auth.service;
+
+import dev.gauravgughane.code.auth.config.ShardRouter;
+import dev.gauravgughane.code.auth.config.TenantConnectionProvider;
+import dev.gauravgughane.code.auth.config.TenantContext;
+import dev.gauravgughane.code.auth.dto.TenantDescriptor;
+import dev.gauravgughane.code.auth.entity.TenantStatus;
+import dev.gauravgughane.code.auth.entity.UserRole;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Runs the real SQL against PostgreSQL started from bundled binaries
+class SessionServiceTest {
+
+    private static final String SCHEMA = "tenant_acme";
+
+    private static EmbeddedPostgres postgres;
+    private static DataSource dataSource;
+
+    private final AuditService auditService = mock(AuditService.class);
+    private SimpleMeterRegistry meterRegistry;
+    private SessionService sessions;
+    private UUID userId;
+
+    @BeforeAll
+    static void startDatabase() throws Exception {
+        postgres = EmbeddedPostgres.builder().setServerConfig("fsync", "off").start();
+        try (Connection conn = postgres.getPostgresDatabase().getConnection();
+             Statement stmt = conn.createStatement()) {
+            // The init script ends with ALTER DATABASE multitenant_auth
+            stmt.execute("CREATE DATABASE multitenant_auth");
+        }
+        dataSource = postgres.getDatabase("postgres", "multitenant_auth");
+        try (InputStream in = SessionServiceTest.class.getResourceAsStream("/db/01-init-schemas.sql");
+             Connection conn = dataSource.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @AfterAll
+    static void stopDatabase() throws Exception {
+        postgres.close();
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        TenantConnectionProvider connectionProvider = mock(TenantConnectionProvider.class);
+        when(connectionProvider.getConnection(SCHEMA)).thenAnswer(invocation -> {
+            Connection conn = dataSource.getConnection();
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("SET search_path TO " + SCHEMA);
+            }
+            return conn;
+        });
+        doAnswer(invocation -> {
+            invocation.<Connection>getArgument(1).close();
+            return null;
+        }).when(connectionProvider).releaseConnection(eq(SCHEMA), any());
+
+        meterRegistry = new SimpleMeterRegistry();
+        sessions = new SessionService(connectionProvider, mock(ShardRouter.class), mock(TenantRegistry.class),
+                auditService, Duration.ofDays(30), Duration.ofDays(90), 500, meterRegistry);
+        TenantContext.set(new TenantDescriptor("acme", SCHEMA, TenantStatus.ACTIVE, null, null, null, null));
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(
+                     "INSERT INTO " + SCHEMA + ".users (name, email, password_hash, role) VALUES (?, ?, 'x', 'ADMIN') RETURNING id")) {
+            stmt.setString(1, "Session Test");
+            stmt.setString(2, UUID.randomUUID() + "@acme.test");
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                userId = rs.getObject(1, UUID.class);
+            }
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        TenantContext.clear();
+    }
+
+    @Test
+    void refreshRotatesTheSecret() throws Exception {
+        String token = sessions.open(userId, "127.0.0.1", "junit");
+
+        SessionService.Refreshed refreshed = sessions.refresh(token);
+
+        assertNotNull(refreshed);
+        assertEquals(userId, refreshed.userId());
+        assertEquals(UserRole.ADMIN, refreshed.role());
+        assertEquals(sessionId(token), sessionId(refreshed.refreshToken()));
+        assertNotEquals(token, refreshed.refreshToken());
+        assertNotNull(sessions.refresh(refreshed.refreshToken()));
+    }
+
+    @Test
+    void replayingTheRotatedOutTokenRevokesTheSession() throws Exception {
+        String token = sessions.open(userId, null, null);
+        String current = sessions.refresh(token).refreshToken();
+
+        assertNull(sessions.refresh(token));
+
+        assertNull(sessions.refresh(current));
+        assertEquals(0, sessionCount());
+        assertEquals(1.0, meterRegistry.counter("auth.session.refresh", "result", "reused").count());
+        verify(auditService).record(eq(AuditService.REFRESH_REUSE), eq("SESSION"), eq(userId), isNull(), isNull());
+    }
+
+    @Test
+    void wrongSecretIsRejectedWithoutRevoking() throws Exception {
+        String token = sessions.open(userId, null, null);
+
+        assertNull(sessions.refresh(sessionId(token) + ".not-the-secret"));
+
+        assertEquals(1, sessionCount());
+        assertNotNull(sessions.refresh(token));
+        verify(auditService, never()).record(eq(AuditService.REFRESH_REUSE), any(), any(), any(), any());
+    }
+
+    @Test
+    void malformedAndUnknownTokensAreRejected() throws Exception {
+        assertNull(sessions.refresh("no-dot"));
+        assertNull(sessions.refresh("not-a-uuid.secret"));
+        assertNull(sessions.refresh(UUID.randomUUID() + ".secret"));
+    }
+
+    @Test
+    void closeNeedsTheCurrentSecret() throws Exception {
+        String token = sessions.open(userId, null, null);
+
+        assertNull(sessions.close(sessionId(token) + ".wrong"));
+        assertEquals(userId, sessions.close(token));
+        assertEquals(0, sessionCount());
+    }
+
+    private static String sessionId(String token) {
+        return token.substring(0, token.indexOf('.'));
+    }
+
+    private int sessionCount() throws Exception {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT count(*) FROM " + SCHEMA + ".sessions WHERE user_id = ?")) {
+            stmt.setObject(1, userId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                return rs.getInt(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package dev.gauravgughane.code.auth.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SigningKeyTest {
+
+    @Test
+    void es256AcceptsP256Keys() {
+        SigningKey key = SigningKey.Algorithm.ES256.generate("k1", Instant.now());
+
+        assertDoesNotThrow(() -> SigningKey.Algorithm.ES256.decodePublic(key.publicKey().getEncoded()));
+        assertDoesNotThrow(() -> SigningKey.Algorithm.ES256.decodePrivate(key.privateKey().getEncoded()));
+    }
+
+    @Test
+    void es256RejectsOtherCurves() throws GeneralSecurityException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp384r1"));
+        KeyPair pair = generator.generateKeyPair();
+
+        assertThrows(GeneralSecurityException.class,
+                () -> SigningKey.Algorithm.ES256.decodePublic(pair.getPublic().getEncoded()));
+        assertThrows(GeneralSecurityException.class,
+                () -> SigningKey.Algorithm.ES256.decodePrivate(pair.getPrivate().getEncoded()));
+    }
+}
@@ -0,0 +1,139 @@
+package dev.gauravgughane.code.auth.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.gauravgughane.code.auth.config.TenantConnectionProvider;
+import dev.gauravgughane.code.auth.config.TenantContext;
+import dev.gauravgughane.code.auth.dto.TenantDescriptor;
+import dev.gauravgughane.code.auth.entity.TenantStatus;
+import dev.gauravgughane.code.auth.entity.UserRole;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserImportServiceTest {
+
+    private final TenantConnectionProvider connectionProvider = mock(TenantConnectionProvider.class);
+    private final PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
+    private final Connection connection = mock(Connection.class);
+    private final PreparedStatement statement = mock(PreparedStatement.class);
+    private UserImportService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        UserLookupCache cache = new UserLookupCache(100, Duration.ofMinutes(1), Duration.ofSeconds(1), registry);
+        service = new UserImportService(connectionProvider, passwordEncoder, cache, new ObjectMapper(),
+                2, 100, 1, 1, registry);
+
+        TenantContext.set(new TenantDescriptor("acme", "tenant_acme", TenantStatus.ACTIVE, null, null, null, null));
+        when(connectionProvider.getConnection("tenant_acme")).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(connection.createArrayOf(anyString(), any())).thenReturn(mock(Array.class));
+        when(statement.executeQuery()).thenReturn(mock(ResultSet.class));
+        when(passwordEncoder.encode(anyString())).thenReturn("hash");
+    }
+
+    @AfterEach
+    void tearDown() {
+        TenantContext.clear();
+        service.shutdown();
+    }
+
+    @Test
+    void csvRowNormalizesEmail() {
+        UserImportService.Row row = service.parseCsv(3, "\"Doe, Jane\", Jane@Example.COM ,secret,admin", UserRole.ADMIN);
+
+        assertEquals("Doe, Jane", row.name());
+        assertEquals("jane@example.com", row.email());
+        assertEquals("JANE@EXAMPLE.COM", row.emailKey());
+        assertEquals(UserRole.ADMIN, row.role());
+    }
+
+    @Test
+    void jsonRowDefaultsToUser() {
+        UserImportService.Row row = service.parseJson(1, "{\"name\":\"A\",\"email\":\"a@x.com\",\"password\":\"p\"}", UserRole.USER);
+
+        assertEquals(UserRole.USER, row.role());
+    }
+
+    @Test
+    void rejectsInvalidRows() {
+        assertThrows(IllegalArgumentException.class, () -> service.parseCsv(1, "A,not-an-email,p", UserRole.ADMIN));
+        assertThrows(IllegalArgumentException.class, () -> service.parseCsv(1, "A,a@x.com,", UserRole.ADMIN));
+        assertThrows(IllegalArgumentException.class, () -> service.parseCsv(1, "A,a@x.com,p,OWNER", UserRole.ADMIN));
+        assertThrows(IllegalArgumentException.class, () -> service.parseCsv(1, "A,\"a@x.com,p", UserRole.ADMIN));
+        assertThrows(IllegalArgumentException.class, () -> service.parseJson(1, "[1]", UserRole.ADMIN));
+    }
+
+    @Test
+    void rejectsRolesAboveCaller() {
+        assertThrows(IllegalArgumentException.class, () -> service.parseCsv(1, "A,a@x.com,p,ADMIN", UserRole.USER));
+        assertThrows(IllegalArgumentException.class, () -> service.parseCsv(1, "A,a@x.com,p,SUPER_ADMIN", UserRole.SUPER_ADMIN));
+    }
+
+    @Test
+    void duplicateEmailInDifferentCaseIsRejected() throws Exception {
+        when(statement.executeBatch()).thenReturn(new int[]{1});
+
+        List<Map<String, Object>> records = new ArrayList<>();
+        Map<String, Object> summary = service.importUsers(reader("name,email,password\nA,A@x.com,p\nB,a@X.com,p\n"),
+                UserImportService.Format.CSV, UserRole.ADMIN, records::add);
+
+        assertEquals(1, summary.get("imported"));
+        assertEquals(1, summary.get("rejected"));
+        assertTrue(records.stream().anyMatch(r -> "Duplicate email in import".equals(r.get("message"))));
+    }
+
+    @Test
+    void hashingFailureRejectsOnlyItsChunk() throws Exception {
+        when(passwordEncoder.encode("bad")).thenThrow(new IllegalArgumentException("boom"));
+        when(statement.executeBatch()).thenReturn(new int[]{1, 1});
+
+        List<Map<String, Object>> records = new ArrayList<>();
+        // Chunk size is 2: the first chunk fails hashing, the second is imported
+        Map<String, Object> summary = service.importUsers(reader("A,a@x.com,bad\nB,b@x.com,p\nC,c@x.com,p\nD,d@x.com,p\n"),
+                UserImportService.Format.CSV, UserRole.ADMIN, records::add);
+
+        assertEquals(4, summary.get("processed"));
+        assertEquals(2, summary.get("imported"));
+        assertEquals(2, summary.get("rejected"));
+        assertEquals(2, records.stream()
+                .filter(r -> String.valueOf(r.get("message")).startsWith("Chunk failed")).count());
+    }
+
+    @Test
+    void needsATenant() throws Exception {
+        TenantContext.clear();
+
+        assertThrows(IllegalArgumentException.class, () -> service.importUsers(reader("A,a@x.com,p\n"),
+                UserImportService.Format.CSV, UserRole.ADMIN, r -> {}));
+        verify(connectionProvider, never()).getConnection(anyString());
+    }
+
+    private static BufferedReader reader(String text) {
+        return new BufferedReader(new StringReader(text));
+    }
+}
@@ -8,9 +8,43 @@ CREATE TABLE IF NOT EXISTS public.tenants (
     name VARCHAR(100) NOT NULL,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    status VARCHAR(20) DEFAULT 'ACTIVE' CHECK (status IN ('ACTIVE', 'INACTIVE', 'SUSPENDED'))
+    status VARCHAR(20) DEFAULT 'ACTIVE' CHECK (status IN ('ACTIVE', 'INACTIVE', 'SUSPENDED')),
+    -- Optional per-tenant connection share overrides (NULL = application default)
+    connection_limit INTEGER,
+    connection_weight INTEGER,
+    -- Database (auth.shards.nodes.<shard>) holding the tenant schema; 'main' is spring.datasource
+    shard VARCHAR(50) NOT NULL DEFAULT 'main'
 );
 
+-- Tenants tables created before the connection share and shard columns existed
+ALTER TABLE public.tenants ADD COLUMN IF NOT EXISTS connection_limit INTEGER;
+ALTER TABLE public.tenants ADD COLUMN IF NOT EXISTS connection_weight INTEGER;
+ALTER TABLE public.tenants ADD COLUMN IF NOT EXISTS shard VARCHAR(50) NOT NULL DEFAULT 'main';
+
+-- Incremental registry refresh reads rows by updated_at
+CREATE INDEX IF NOT EXISTS idx_tenants_updated_at ON public.tenants(updated_at);
+
+CREATE OR REPLACE FUNCTION public.update_tenants_updated_at()
+RETURNS TRIGGER AS $$
+BEGIN
+    NEW.updated_at = CURRENT_TIMESTAMP;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS update_tenants_updated_at ON public.tenants;
+CREATE TRIGGER update_tenants_updated_at
+    BEFORE UPDATE ON public.tenants
+    FOR EACH ROW
+    EXECUTE FUNCTION public.update_tenants_updated_at();
+
+-- Register the seed tenants so the application registry knows about them
+INSERT INTO public.tenants (tenant_id, name) VALUES
+    ('acme', 'Acme'),
+    ('beta', 'Beta'),
+    ('gamma', 'Gamma')
+ON CONFLICT (tenant_id) DO NOTHING;
+
 -- Create tenant-specific schemas
 CREATE SCHEMA IF NOT EXISTS public;
 CREATE SCHEMA IF NOT EXISTS tenant_acme;
@@ -44,7 +78,11 @@ BEGIN
             CREATE INDEX IF NOT EXISTS idx_users_email ON %I.users(email);
             CREATE INDEX IF NOT EXISTS idx_users_role ON %I.users(role);
             CREATE INDEX IF NOT EXISTS idx_users_created_at ON %I.users(created_at);
-        ', schema_name, schema_name, schema_name, schema_name);
+            -- Keyset pagination of user listings
+            CREATE INDEX IF NOT EXISTS idx_users_created_at_id ON %I.users(created_at, id);
+            -- Case-insensitive login lookups
+            CREATE INDEX IF NOT EXISTS idx_users_email_upper ON %I.users(upper(email));
+        ', schema_name, schema_name, schema_name, schema_name, schema_name, schema_name);
         
         EXECUTE sql_cmd;
     END LOOP;
@@ -65,15 +103,19 @@ BEGIN
                 id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
                 user_id UUID REFERENCES %I.users(id) ON DELETE CASCADE,
                 token_hash VARCHAR(255) NOT NULL,
+                -- Hash of the secret rotated out last; presenting it again is token reuse
+                previous_token_hash VARCHAR(255),
                 created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
                 expires_at TIMESTAMP NOT NULL,
                 ip_address INET,
                 user_agent TEXT
             );
+            -- Sessions tables created before previous_token_hash existed
+            ALTER TABLE %I.sessions ADD COLUMN IF NOT EXISTS previous_token_hash VARCHAR(255);
             
             CREATE INDEX IF NOT EXISTS idx_sessions_user_id ON %I.sessions(user_id);
             CREATE INDEX IF NOT EXISTS idx_sessions_expires_at ON %I.sessions(expires_at);
-        ', schema_name, schema_name, schema_name, schema_name);
+        ', schema_name, schema_name, schema_name, schema_name, schema_name);
         
         EXECUTE sql_cmd;
     END LOOP;
@@ -106,33 +148,26 @@ BEGIN
             CREATE INDEX IF NOT EXISTS idx_audit_logs_user_id ON %I.audit_logs(user_id);
             CREATE INDEX IF NOT EXISTS idx_audit_logs_action ON %I.audit_logs(action);
             CREATE INDEX IF NOT EXISTS idx_audit_logs_created_at ON %I.audit_logs(created_at);
-        ', schema_name, schema_name, schema_name, schema_name);
+        ', schema_name, schema_name, schema_name, schema_name, schema_name);
         
         EXECUTE sql_cmd;
     END LOOP;
 END $$;
 
--- Create a function to create tenant schema dynamically
-CREATE OR REPLACE FUNCTION create_tenant_schema(p_tenant_id VARCHAR(50), p_name VARCHAR(100))
-RETURNS UUID AS $$
+-- Builds a complete tenant schema (tables, indexes, triggers). Idempotent; used both
+-- for inline provisioning and for the pre-built schema pool.
+CREATE OR REPLACE FUNCTION public.build_tenant_schema(schema_name TEXT)
+RETURNS VOID AS $$
 DECLARE
-    tenant_uuid UUID;
-    schema_name TEXT;
     sql_cmd TEXT;
 BEGIN
-    -- Insert tenant record
-    INSERT INTO public.tenants (tenant_id, name)
-    VALUES (p_tenant_id, p_name)
-    RETURNING id INTO tenant_uuid;
-    
-    -- Create schema
-    schema_name := 'tenant_' || p_tenant_id;
     EXECUTE 'CREATE SCHEMA IF NOT EXISTS ' || quote_ident(schema_name);
     
-    -- Create tables in new schema
+    -- Create tables in new schema. Functions are schema-qualified: callers may hold a
+    -- pooled connection whose search_path is still another tenant's schema
     sql_cmd := format('
-        CREATE TABLE IF NOT EXISTS %I.users (
-            id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
+        CREATE TABLE IF NOT EXISTS %1$I.users (
+            id UUID PRIMARY KEY DEFAULT public.uuid_generate_v4(),
             name VARCHAR(100) NOT NULL,
             email VARCHAR(255) UNIQUE NOT NULL,
             password_hash VARCHAR(255) NOT NULL,
@@ -142,19 +177,20 @@ BEGIN
             last_login TIMESTAMP
         );
         
-        CREATE TABLE IF NOT EXISTS %I.sessions (
-            id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
-            user_id UUID REFERENCES %I.users(id) ON DELETE CASCADE,
+        CREATE TABLE IF NOT EXISTS %1$I.sessions (
+            id UUID PRIMARY KEY DEFAULT public.uuid_generate_v4(),
+            user_id UUID REFERENCES %1$I.users(id) ON DELETE CASCADE,
             token_hash VARCHAR(255) NOT NULL,
+            previous_token_hash VARCHAR(255),
             created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
             expires_at TIMESTAMP NOT NULL,
             ip_address INET,
             user_agent TEXT
         );
         
-        CREATE TABLE IF NOT EXISTS %I.audit_logs (
-            id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
-            user_id UUID REFERENCES %I.users(id),
+        CREATE TABLE IF NOT EXISTS %1$I.audit_logs (
+            id UUID PRIMARY KEY DEFAULT public.uuid_generate_v4(),
+            user_id UUID REFERENCES %1$I.users(id),
             action VARCHAR(100) NOT NULL,
             resource_type VARCHAR(50) NOT NULL,
             resource_id UUID,
@@ -166,18 +202,141 @@ BEGIN
         );
         
         -- Create indexes
-        CREATE INDEX IF NOT EXISTS idx_users_email ON %I.users(email);
-        CREATE INDEX IF NOT EXISTS idx_users_role ON %I.users(role);
-        CREATE INDEX IF NOT EXISTS idx_sessions_user_id ON %I.sessions(user_id);
-        CREATE INDEX IF NOT EXISTS idx_audit_logs_user_id ON %I.audit_logs(user_id);
-    ', schema_name, schema_name, schema_name, schema_name, schema_name, schema_name, schema_name);
+        CREATE INDEX IF NOT EXISTS idx_users_email ON %1$I.users(email);
+        CREATE INDEX IF NOT EXISTS idx_users_role ON %1$I.users(role);
+        CREATE INDEX IF NOT EXISTS idx_users_created_at_id ON %1$I.users(created_at, id);
+        CREATE INDEX IF NOT EXISTS idx_users_email_upper ON %1$I.users(upper(email));
+        CREATE INDEX IF NOT EXISTS idx_sessions_user_id ON %1$I.sessions(user_id);
+        CREATE INDEX IF NOT EXISTS idx_sessions_expires_at ON %1$I.sessions(expires_at);
+        CREATE INDEX IF NOT EXISTS idx_audit_logs_user_id ON %1$I.audit_logs(user_id);
+        CREATE INDEX IF NOT EXISTS idx_audit_logs_created_at ON %1$I.audit_logs(created_at);
+    ', schema_name);
     
     EXECUTE sql_cmd;
+
+    sql_cmd := format('
+        CREATE OR REPLACE FUNCTION %1$I.update_updated_at_column()
+        RETURNS TRIGGER AS $body$
+        BEGIN
+            NEW.updated_at = CURRENT_TIMESTAMP;
+            RETURN NEW;
+        END;
+        $body$ LANGUAGE plpgsql;
+
+        DROP TRIGGER IF EXISTS update_users_updated_at ON %1$I.users;
+        CREATE TRIGGER update_users_updated_at
+            BEFORE UPDATE ON %1$I.users
+            FOR EACH ROW
+            EXECUTE FUNCTION %1$I.update_updated_at_column();
+    ', schema_name);
+
+    EXECUTE sql_cmd;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Create a function to create tenant schema dynamically
+CREATE OR REPLACE FUNCTION create_tenant_schema(p_tenant_id VARCHAR(50), p_name VARCHAR(100))
+RETURNS UUID AS $$
+DECLARE
+    tenant_uuid UUID;
+BEGIN
+    -- Insert tenant record
+    INSERT INTO public.tenants (tenant_id, name)
+    VALUES (p_tenant_id, p_name)
+    RETURNING id INTO tenant_uuid;
     
+    PERFORM public.build_tenant_schema('tenant_' || p_tenant_id);
+    
+    RETURN tenant_uuid;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Pool of fully built, unassigned schemas (pool_<random>). A row exists only once its
+-- schema is complete: both are created in the same transaction.
+CREATE TABLE IF NOT EXISTS public.schema_pool (
+    schema_name VARCHAR(63) PRIMARY KEY,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Turns the oldest pooled schema into tenant_<p_tenant_id> and registers the tenant, all
+-- in the caller's transaction. Returns NULL when the pool is empty. SKIP LOCKED lets
+-- concurrent claims take different schemas instead of queueing on the same row.
+CREATE OR REPLACE FUNCTION public.claim_tenant_schema(p_tenant_id VARCHAR(50), p_name VARCHAR(100))
+RETURNS UUID AS $$
+DECLARE
+    pooled TEXT;
+    tenant_uuid UUID;
+BEGIN
+    SELECT schema_name INTO pooled
+    FROM public.schema_pool
+    ORDER BY created_at
+    LIMIT 1
+    FOR UPDATE SKIP LOCKED;
+
+    IF pooled IS NULL THEN
+        RETURN NULL;
+    END IF;
+
+    EXECUTE format('ALTER SCHEMA %I RENAME TO %I', pooled, 'tenant_' || p_tenant_id);
+    DELETE FROM public.schema_pool WHERE schema_name = pooled;
+
+    INSERT INTO public.tenants (tenant_id, name)
+    VALUES (p_tenant_id, p_name)
+    RETURNING id INTO tenant_uuid;
+
     RETURN tenant_uuid;
 END;
 $$ LANGUAGE plpgsql;
 
+-- JWT signing key ring (DatabaseSigningKeySource). private_key is PKCS#8, AES-GCM sealed
+-- when encrypted is true; public_key is X.509. Keys sign from activates_at onwards.
+CREATE TABLE IF NOT EXISTS public.signing_keys (
+    kid VARCHAR(64) PRIMARY KEY,
+    algorithm VARCHAR(16) NOT NULL,
+    public_key BYTEA NOT NULL,
+    private_key BYTEA NOT NULL,
+    encrypted BOOLEAN NOT NULL DEFAULT FALSE,
+    activates_at TIMESTAMPTZ NOT NULL, -- compared across nodes, so zone-independent
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Row changes in a tenant schema that is being moved to another shard (TenantShardMover).
+-- The capture trigger is installed on the tenant's tables for the duration of the move;
+-- the mover replays the captured ids against the target and deletes them as it goes.
+CREATE TABLE IF NOT EXISTS public.shard_move_log (
+    seq BIGSERIAL PRIMARY KEY,
+    schema_name VARCHAR(63) NOT NULL,
+    table_name VARCHAR(63) NOT NULL,
+    row_id UUID NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_shard_move_log_schema ON public.shard_move_log(schema_name, seq);
+
+CREATE OR REPLACE FUNCTION public.capture_shard_move()
+RETURNS TRIGGER AS $$
+BEGIN
+    INSERT INTO public.shard_move_log (schema_name, table_name, row_id)
+    VALUES (TG_TABLE_SCHEMA, TG_TABLE_NAME, CASE WHEN TG_OP = 'DELETE' THEN OLD.id ELSE NEW.id END);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Access token revocations (TokenRevocationService): single tokens by jti, and not-before
+-- watermarks for a subject or a whole tenant. Every node loads the live rows at startup and
+-- polls for new ones; rows are deleted once expires_at has passed.
+CREATE TABLE IF NOT EXISTS public.token_revocations (
+    id BIGSERIAL PRIMARY KEY,
+    kind VARCHAR(16) NOT NULL, -- TOKEN, SUBJECT or TENANT
+    tenant_id VARCHAR(50),
+    subject VARCHAR(255),
+    jti UUID,
+    not_before TIMESTAMPTZ,
+    expires_at TIMESTAMPTZ NOT NULL,
+    created_at TIMESTAMPTZ NOT NULL DEFAULT clock_timestamp()
+);
+
+CREATE INDEX IF NOT EXISTS idx_token_revocations_created ON public.token_revocations(created_at);
+
 -- Create a function to delete tenant schema
 CREATE OR REPLACE FUNCTION delete_tenant_schema(p_tenant_id VARCHAR(50))
 RETURNS VOID AS $$
@@ -209,7 +368,8 @@ GRANT ALL PRIVILEGES ON ALL TABLES IN SCHEMA public TO postgres;
 GRANT ALL PRIVILEGES ON ALL SEQUENCES IN SCHEMA public TO postgres;
 
 -- Create triggers for updated_at timestamps
-DO $$
+-- (outer block uses its own tag: the trigger body inside is $$-quoted)
+DO $do$
 DECLARE
     schema_name TEXT;
     sql_cmd TEXT;
@@ -238,4 +398,4 @@ BEGIN
         
         EXECUTE sql_cmd;
     END LOOP;
-END $$;
\ No newline at end of file
+END $do$;
\ No newline at end of file